@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class <code>BoundedCache</code> is a thread-safe cache holding at most a fixed number of entries.
+ * Keys are spread over independently locked stripes, each evicting its least recently used entry when full,
+ * so threads looking up different keys rarely contend. Values are loaded outside the lock; when two threads
+ * load the same key at once, both get the value stored first, which makes the cache usable for
+ * canonicalizing immutable values. Hits and misses are counted for monitoring.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class BoundedCache<K, V> {
+  private static final int MAX_STRIPES = 16;
+
+  private final Stripe<K, V>[] stripes;
+  private final int mask;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Loads the value of a key that is not cached.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   * @param <E> the type of the exception thrown when a value cannot be loaded
+   */
+  public interface Loader<K, V, E extends Exception> {
+    /**
+     * @param key the key
+     * @return the value, never null
+     * @throws E if the value cannot be loaded
+     */
+    V load(K key) throws E;
+  }
+
+  /**
+   * Constructor for a cache.
+   *
+   * @param capacity the maximum number of entries
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  @SuppressWarnings("unchecked")
+  public BoundedCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException(String.format("Cache capacity must be positive, got %d", capacity));
+    }
+    // Use a power of two stripes, but no more than the capacity, so every stripe holds an entry
+    int count = Math.min(MAX_STRIPES, Integer.highestOneBit(capacity));
+    this.stripes = (Stripe<K, V>[]) new Stripe<?, ?>[count];
+    for (int i = 0; i < count; i++) {
+      stripes[i] = new Stripe<>(capacity / count);
+    }
+    this.mask = count - 1;
+  }
+
+  /**
+   * Gets the cached value of a key, loading and caching it if it is absent.
+   *
+   * @param key the key
+   * @param loader loads the value on a miss
+   * @param <E> the type of the exception thrown when a value cannot be loaded
+   * @return the cached value
+   * @throws E if the value is absent and cannot be loaded; nothing is cached in that case
+   */
+  public <E extends Exception> V get(K key, Loader<? super K, ? extends V, E> loader) throws E {
+    Stripe<K, V> stripe = stripe(key);
+    V value;
+    synchronized (stripe) {
+      value = stripe.get(key);
+    }
+    if (value != null) {
+      hits.increment();
+      return value;
+    }
+    
+    misses.increment();
+    V loaded = loader.load(key);
+    synchronized (stripe) {
+      value = stripe.putIfAbsent(key, loaded);
+    }
+    return value == null ? loaded : value;
+  }
+
+  /**
+   * @return the number of lookups that found their key
+   */
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return the number of lookups that had to load their value
+   */
+  public long missCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return the number of cached entries
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Removes every entry. The hit and miss counts are kept.
+   */
+  public void clear() {
+    for (Stripe<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        stripe.clear();
+      }
+    }
+  }
+
+  private Stripe<K, V> stripe(K key) {
+    int hash = key.hashCode();
+    // Spread the high bits, since the stripe is picked with a mask
+    return stripes[(hash ^ (hash >>> 16)) & mask];
+  }
+
+  /**
+   * One stripe of the cache, a map in access order that drops its eldest entry when full.
+   */
+  private static final class Stripe<K, V> extends LinkedHashMap<K, V> {
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+
+    private Stripe(int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+      return size() > capacity;
+    }
+  }
+}
@@ -21,16 +21,18 @@ import java.util.Map;
 import java.util.Set;
 
 /**
- * This class <code>Row</code> represents a row of data.
+ * This class <code>Row</code> represents a row of data. Fields are kept in a map from name to value, so the
+ * numeric accessors read and write boxed numbers; {@link SchemaRow} keeps numeric cells of its schema
+ * columns unboxed.
  */
 public class Row {
-  private final Map<String, Object> fields;
+  // Created on the first write, so rows that never hold a field by name, like most schema rows, go without
+  private Map<String, Object> fields;
 
   /**
    * Constructor for a row.
    */
   public Row() {
-    this.fields = new LinkedHashMap<>();
   }
 
   /**
@@ -49,7 +51,7 @@ public class Row {
    * @param value the field value
    */
   public void add(String name, Object value) {
-    fields.put(name, value);
+    fields().put(name, value);
   }
 
   /**
@@ -59,7 +61,7 @@ public class Row {
    * @return the field value
    */
   public Object getValue(String name) {
-    return fields.get(name);
+    return fields == null ? null : fields.get(name);
   }
 
   /**
@@ -69,7 +71,79 @@ public class Row {
    * @return true if the row has the field, false otherwise
    */
   public boolean has(String name) {
-    return fields.containsKey(name);
+    return fields != null && fields.containsKey(name);
+  }
+
+  /**
+   * Checks if a field is missing or holds null.
+   *
+   * @param name the field name
+   * @return true if the field has no value, false otherwise
+   */
+  public boolean isNull(String name) {
+    return getValue(name) == null;
+  }
+
+  /**
+   * Checks if a field holds a number.
+   *
+   * @param name the field name
+   * @return true if the field value is numeric, false otherwise
+   */
+  public boolean isNumeric(String name) {
+    return getValue(name) instanceof Number;
+  }
+
+  /**
+   * Gets the value of a numeric field as a long.
+   *
+   * @param name the field name
+   * @return the field value
+   * @throws IllegalStateException if the field is not numeric
+   */
+  public long getLong(String name) {
+    return number(name).longValue();
+  }
+
+  /**
+   * Gets the value of a numeric field as a double.
+   *
+   * @param name the field name
+   * @return the field value
+   * @throws IllegalStateException if the field is not numeric
+   */
+  public double getDouble(String name) {
+    return number(name).doubleValue();
+  }
+
+  /**
+   * Sets a field to a long value. The value is boxed into the field map; only {@link SchemaRow} stores it
+   * unboxed.
+   *
+   * @param name the field name
+   * @param value the field value
+   */
+  public void setLong(String name, long value) {
+    add(name, value);
+  }
+
+  /**
+   * Sets a field to a double value. The value is boxed into the field map; only {@link SchemaRow} stores it
+   * unboxed.
+   *
+   * @param name the field name
+   * @param value the field value
+   */
+  public void setDouble(String name, double value) {
+    add(name, value);
+  }
+
+  private Number number(String name) {
+    Object value = getValue(name);
+    if (!(value instanceof Number)) {
+      throw new IllegalStateException(String.format("Field '%s' is not numeric", name));
+    }
+    return (Number) value;
   }
 
   /**
@@ -78,7 +152,7 @@ public class Row {
    * @return the field names
    */
   public Set<String> getFields() {
-    return fields.keySet();
+    return fields().keySet();
   }
 
   /**
@@ -87,6 +161,23 @@ public class Row {
    * @return the fields
    */
   public Map<String, Object> getValues() {
+    return fields();
+  }
+
+  /**
+   * Gets the fields written by name without creating the map, for subclasses that store most of their
+   * fields elsewhere.
+   *
+   * @return the fields, or null if none has been written yet
+   */
+  Map<String, Object> getWrittenValues() {
+    return fields;
+  }
+
+  private Map<String, Object> fields() {
+    if (fields == null) {
+      fields = new LinkedHashMap<>();
+    }
     return fields;
   }
 }
\ No newline at end of file
@@ -0,0 +1,466 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class <code>RowBatch</code> represents a batch of rows stored column by column.
+ * Each column is a typed vector (<code>long[]</code>, <code>double[]</code>, <code>String[]</code> or
+ * <code>Object[]</code>) with a validity bitmap marking which cells hold a value.
+ */
+public final class RowBatch {
+  /**
+   * This enum <code>ColumnType</code> represents the storage type of a column.
+   */
+  public enum ColumnType {
+    /**
+     * Integral values stored in a <code>long[]</code>.
+     */
+    LONG,
+
+    /**
+     * Floating-point values stored in a <code>double[]</code>.
+     */
+    DOUBLE,
+
+    /**
+     * Strings stored in a <code>String[]</code>.
+     */
+    STRING,
+
+    /**
+     * Any other values, or a mix of types, stored unchanged in an <code>Object[]</code>.
+     */
+    OBJECT
+  }
+
+  private final String[] names;
+  private final Map<String, Integer> ordinals;
+  private final Column[] columns;
+  private final int size;
+
+  private RowBatch(String[] names, Column[] columns, int size) {
+    this.names = names;
+    this.columns = columns;
+    this.size = size;
+    this.ordinals = new HashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      ordinals.put(names[i], i);
+    }
+  }
+
+  /**
+   * Creates a batch from a list of rows. Columns appear in the order they are first seen. A column holding only
+   * integral numbers is stored as {@link ColumnType#LONG}, one holding floating-point numbers as
+   * {@link ColumnType#DOUBLE}, one holding only strings as {@link ColumnType#STRING}, and anything else as
+   * {@link ColumnType#OBJECT}, so every value comes back from {@link #toRows()} as it went in. Missing and
+   * null cells are marked invalid.
+   *
+   * @param rows the rows to convert
+   * @return the batch
+   */
+  public static RowBatch fromRows(List<Row> rows) {
+    Map<String, ColumnType> types = new LinkedHashMap<>();
+    for (Row row : rows) {
+      for (Map.Entry<String, Object> field : row.getValues().entrySet()) {
+        types.merge(field.getKey(), typeOf(field.getValue()), RowBatch::widen);
+      }
+    }
+
+    int size = rows.size();
+    String[] names = types.keySet().toArray(new String[0]);
+    Column[] columns = new Column[names.length];
+    for (int c = 0; c < names.length; c++) {
+      Column column = new Column(types.get(names[c]), size);
+      for (int r = 0; r < size; r++) {
+        column.set(r, rows.get(r).getValue(names[c]));
+      }
+      columns[c] = column;
+    }
+    return new RowBatch(names, columns, size);
+  }
+
+  /**
+   * Converts the batch back into rows. Invalid cells are left out of the rows, and numeric cells come back
+   * as {@link Long} or {@link Double}.
+   *
+   * @return the rows
+   */
+  public List<Row> toRows() {
+    List<Row> rows = new ArrayList<>(size);
+    for (int r = 0; r < size; r++) {
+      Row row = new Row();
+      for (int c = 0; c < columns.length; c++) {
+        if (columns[c].isValid(r)) {
+          row.add(names[c], columns[c].get(r));
+        }
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  /**
+   * Gets the number of rows in the batch.
+   *
+   * @return the number of rows
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the batch has no rows.
+   *
+   * @return true if the batch is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Gets the number of columns in the batch.
+   *
+   * @return the number of columns
+   */
+  public int getColumnCount() {
+    return columns.length;
+  }
+
+  /**
+   * Gets the name of a column.
+   *
+   * @param column the column index
+   * @return the column name
+   */
+  public String getColumnName(int column) {
+    return names[column];
+  }
+
+  /**
+   * Gets the index of a column.
+   *
+   * @param name the column name
+   * @return the column index, or -1 if the batch has no such column
+   */
+  public int indexOf(String name) {
+    Integer ordinal = ordinals.get(name);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * Gets the storage type of a column.
+   *
+   * @param column the column index
+   * @return the column type
+   */
+  public ColumnType getColumnType(int column) {
+    return columns[column].type;
+  }
+
+  /**
+   * Checks if a cell holds no value.
+   *
+   * @param column the column index
+   * @param row the row index
+   * @return true if the cell is null or missing, false otherwise
+   */
+  public boolean isNull(int column, int row) {
+    return !columns[column].isValid(row);
+  }
+
+  /**
+   * Gets a cell of a {@link ColumnType#LONG} column.
+   *
+   * @param column the column index
+   * @param row the row index
+   * @return the cell value, 0 for invalid cells
+   */
+  public long getLong(int column, int row) {
+    return columns[column].longs[row];
+  }
+
+  /**
+   * Gets a cell of a numeric column as a double.
+   *
+   * @param column the column index
+   * @param row the row index
+   * @return the cell value, 0 for invalid cells
+   */
+  public double getDouble(int column, int row) {
+    Column c = columns[column];
+    return c.type == ColumnType.LONG ? c.longs[row] : c.doubles[row];
+  }
+
+  /**
+   * Gets a cell of a {@link ColumnType#STRING} column.
+   *
+   * @param column the column index
+   * @param row the row index
+   * @return the cell value, null for invalid cells
+   */
+  public String getString(int column, int row) {
+    return columns[column].strings[row];
+  }
+
+  /**
+   * Gets a cell as an object, boxing numeric values.
+   *
+   * @param column the column index
+   * @param row the row index
+   * @return the cell value, null for invalid cells
+   */
+  public Object getValue(int column, int row) {
+    Column c = columns[column];
+    return c.isValid(row) ? c.get(row) : null;
+  }
+
+  /**
+   * Gets the backing vector of a {@link ColumnType#LONG} column. The array is not copied and must not be modified.
+   *
+   * @param column the column index
+   * @return the column values
+   */
+  public long[] getLongVector(int column) {
+    return columns[column].longs;
+  }
+
+  /**
+   * Gets the backing vector of a {@link ColumnType#DOUBLE} column. The array is not copied and must not be modified.
+   *
+   * @param column the column index
+   * @return the column values
+   */
+  public double[] getDoubleVector(int column) {
+    return columns[column].doubles;
+  }
+
+  /**
+   * Gets the backing vector of a {@link ColumnType#STRING} column. The array is not copied and must not be modified.
+   *
+   * @param column the column index
+   * @return the column values
+   */
+  public String[] getStringVector(int column) {
+    return columns[column].strings;
+  }
+
+  /**
+   * Creates a builder for a batch.
+   *
+   * @param size the number of rows in the batch
+   * @return the builder
+   */
+  public static Builder builder(int size) {
+    return new Builder(size);
+  }
+
+  private static ColumnType typeOf(Object value) {
+    if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return ColumnType.LONG;
+    }
+    if (value instanceof Double || value instanceof Float) {
+      return ColumnType.DOUBLE;
+    }
+    if (value instanceof String) {
+      return ColumnType.STRING;
+    }
+    // Nulls do not constrain the type, anything else is kept as it is
+    return value == null ? null : ColumnType.OBJECT;
+  }
+
+  private static ColumnType widen(ColumnType a, ColumnType b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null || a == b) {
+      return a;
+    }
+    if (a == ColumnType.STRING || b == ColumnType.STRING || a == ColumnType.OBJECT || b == ColumnType.OBJECT) {
+      return ColumnType.OBJECT;
+    }
+    return ColumnType.DOUBLE;
+  }
+
+  /**
+   * Builder for a batch whose columns are supplied as ready-made vectors.
+   */
+  public static class Builder {
+    private final int size;
+    private final List<String> names;
+    private final List<Column> columns;
+
+    /**
+     * Constructor for a builder.
+     *
+     * @param size the number of rows in the batch
+     */
+    public Builder(int size) {
+      this.size = size;
+      this.names = new ArrayList<>();
+      this.columns = new ArrayList<>();
+    }
+
+    /**
+     * Adds a {@link ColumnType#LONG} column where every cell is valid.
+     *
+     * @param name the column name
+     * @param values the column values, one per row
+     * @return the builder
+     */
+    public Builder addColumn(String name, long[] values) {
+      Column column = new Column(ColumnType.LONG, values, null, null, null);
+      column.setAllValid();
+      return add(name, column, values.length);
+    }
+
+    /**
+     * Adds a {@link ColumnType#DOUBLE} column where every cell is valid.
+     *
+     * @param name the column name
+     * @param values the column values, one per row
+     * @return the builder
+     */
+    public Builder addColumn(String name, double[] values) {
+      Column column = new Column(ColumnType.DOUBLE, null, values, null, null);
+      column.setAllValid();
+      return add(name, column, values.length);
+    }
+
+    /**
+     * Adds a {@link ColumnType#STRING} column, where null entries are invalid cells.
+     *
+     * @param name the column name
+     * @param values the column values, one per row
+     * @return the builder
+     */
+    public Builder addColumn(String name, String[] values) {
+      Column column = new Column(ColumnType.STRING, null, null, values, null);
+      for (int r = 0; r < values.length; r++) {
+        if (values[r] != null) {
+          column.setValid(r);
+        }
+      }
+      return add(name, column, values.length);
+    }
+
+    private Builder add(String name, Column column, int length) {
+      if (length != size) {
+        throw new IllegalArgumentException(
+          String.format("Column '%s' has %d values, expected %d", name, length, size));
+      }
+      if (names.contains(name)) {
+        throw new IllegalArgumentException(String.format("Duplicate column '%s'", name));
+      }
+      names.add(name);
+      columns.add(column);
+      return this;
+    }
+
+    /**
+     * Builds the batch.
+     *
+     * @return the batch
+     */
+    public RowBatch build() {
+      return new RowBatch(names.toArray(new String[0]), columns.toArray(new Column[0]), size);
+    }
+  }
+
+  /**
+   * A single column: one typed vector plus a validity bitmap.
+   */
+  private static final class Column {
+    private final ColumnType type;
+    private final long[] longs;
+    private final double[] doubles;
+    private final String[] strings;
+    private final Object[] objects;
+    private final long[] validity;
+
+    private Column(ColumnType type, int size) {
+      this(type == null ? ColumnType.STRING : type,
+           type == ColumnType.LONG ? new long[size] : null,
+           type == ColumnType.DOUBLE ? new double[size] : null,
+           type == null || type == ColumnType.STRING ? new String[size] : null,
+           type == ColumnType.OBJECT ? new Object[size] : null);
+    }
+
+    private Column(ColumnType type, long[] longs, double[] doubles, String[] strings, Object[] objects) {
+      this.type = type;
+      this.longs = longs;
+      this.doubles = doubles;
+      this.strings = strings;
+      this.objects = objects;
+      int size = longs != null ? longs.length : doubles != null ? doubles.length
+        : strings != null ? strings.length : objects.length;
+      this.validity = new long[(size + 63) >>> 6];
+    }
+
+    private void set(int row, Object value) {
+      if (value == null) {
+        return;
+      }
+      switch (type) {
+        case LONG:
+          longs[row] = ((Number) value).longValue();
+          break;
+        case DOUBLE:
+          doubles[row] = ((Number) value).doubleValue();
+          break;
+        case STRING:
+          strings[row] = (String) value;
+          break;
+        default:
+          objects[row] = value;
+          break;
+      }
+      setValid(row);
+    }
+
+    private Object get(int row) {
+      switch (type) {
+        case LONG:
+          return longs[row];
+        case DOUBLE:
+          return doubles[row];
+        case STRING:
+          return strings[row];
+        default:
+          return objects[row];
+      }
+    }
+
+    private boolean isValid(int row) {
+      return (validity[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private void setValid(int row) {
+      validity[row >>> 6] |= 1L << row;
+    }
+
+    private void setAllValid() {
+      Arrays.fill(validity, -1L);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class <code>RowSchema</code> maps column names to ordinals. It is immutable, so a single instance
+ * can be shared by every {@link SchemaRow} of a batch.
+ */
+public final class RowSchema {
+  private final String[] names;
+  private final Map<String, Integer> ordinals;
+
+  /**
+   * Constructor for a schema.
+   *
+   * @param names the column names, in ordinal order
+   * @throws IllegalArgumentException if a name appears more than once
+   */
+  public RowSchema(List<String> names) {
+    this.names = names.toArray(new String[0]);
+    this.ordinals = new HashMap<>();
+    for (int i = 0; i < this.names.length; i++) {
+      if (ordinals.put(this.names[i], i) != null) {
+        throw new IllegalArgumentException(String.format("Duplicate column '%s' in schema", this.names[i]));
+      }
+    }
+  }
+
+  /**
+   * Creates a schema from column names.
+   *
+   * @param names the column names, in ordinal order
+   * @return the schema
+   */
+  public static RowSchema of(String... names) {
+    return new RowSchema(Arrays.asList(names));
+  }
+
+  /**
+   * Gets the ordinal of a column.
+   *
+   * @param name the column name
+   * @return the ordinal, or -1 if the schema has no such column
+   */
+  public int indexOf(String name) {
+    Integer ordinal = ordinals.get(name);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * Gets the name of a column.
+   *
+   * @param ordinal the column ordinal
+   * @return the column name
+   */
+  public String getName(int ordinal) {
+    return names[ordinal];
+  }
+
+  /**
+   * Gets the column names.
+   *
+   * @return the column names, in ordinal order
+   */
+  public List<String> getNames() {
+    return Collections.unmodifiableList(Arrays.asList(names));
+  }
+
+  /**
+   * Gets the number of columns.
+   *
+   * @return the number of columns
+   */
+  public int size() {
+    return names.length;
+  }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class <code>SchemaRow</code> represents a row bound to a shared {@link RowSchema}. Schema columns are
+ * stored in an array and can be accessed by ordinal; the name-based {@link Row} methods remain available and
+ * fields outside the schema are kept in the map inherited from {@link Row}, which is only created when the
+ * first of them is written. Numbers set through the primitive setters are kept unboxed and only boxed when
+ * read back as objects.
+ */
+public class SchemaRow extends Row {
+  // Markers for cells whose value lives unboxed in primitives
+  private static final Object LONG_CELL = new Object();
+  private static final Object DOUBLE_CELL = new Object();
+
+  private final RowSchema schema;
+  private final Object[] values;
+  private long[] primitives;
+
+  /**
+   * Constructor for a row bound to a schema, with every column set to null.
+   *
+   * @param schema the schema
+   */
+  public SchemaRow(RowSchema schema) {
+    this.schema = schema;
+    this.values = new Object[schema.size()];
+  }
+
+  /**
+   * Gets the schema of the row.
+   *
+   * @return the schema
+   */
+  public RowSchema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Gets the value of a column by ordinal.
+   *
+   * @param ordinal the column ordinal
+   * @return the column value
+   */
+  public Object get(int ordinal) {
+    Object value = values[ordinal];
+    if (value == LONG_CELL) {
+      return primitives[ordinal];
+    }
+    if (value == DOUBLE_CELL) {
+      return Double.longBitsToDouble(primitives[ordinal]);
+    }
+    return value;
+  }
+
+  /**
+   * Sets the value of a column by ordinal.
+   *
+   * @param ordinal the column ordinal
+   * @param value the column value
+   */
+  public void set(int ordinal, Object value) {
+    values[ordinal] = value;
+  }
+
+  /**
+   * Checks if a column holds null.
+   *
+   * @param ordinal the column ordinal
+   * @return true if the column has no value, false otherwise
+   */
+  public boolean isNull(int ordinal) {
+    return values[ordinal] == null;
+  }
+
+  /**
+   * Checks if a column holds a number.
+   *
+   * @param ordinal the column ordinal
+   * @return true if the column value is numeric, false otherwise
+   */
+  public boolean isNumeric(int ordinal) {
+    Object value = values[ordinal];
+    return value == LONG_CELL || value == DOUBLE_CELL || value instanceof Number;
+  }
+
+  /**
+   * Gets the value of a numeric column as a long.
+   *
+   * @param ordinal the column ordinal
+   * @return the column value
+   * @throws IllegalStateException if the column is not numeric
+   */
+  public long getLong(int ordinal) {
+    Object value = values[ordinal];
+    if (value == LONG_CELL) {
+      return primitives[ordinal];
+    }
+    if (value == DOUBLE_CELL) {
+      return (long) Double.longBitsToDouble(primitives[ordinal]);
+    }
+    return number(ordinal, value).longValue();
+  }
+
+  /**
+   * Gets the value of a numeric column as a double.
+   *
+   * @param ordinal the column ordinal
+   * @return the column value
+   * @throws IllegalStateException if the column is not numeric
+   */
+  public double getDouble(int ordinal) {
+    Object value = values[ordinal];
+    if (value == DOUBLE_CELL) {
+      return Double.longBitsToDouble(primitives[ordinal]);
+    }
+    if (value == LONG_CELL) {
+      return primitives[ordinal];
+    }
+    return number(ordinal, value).doubleValue();
+  }
+
+  /**
+   * Sets a column to a long value, stored unboxed.
+   *
+   * @param ordinal the column ordinal
+   * @param value the column value
+   */
+  public void setLong(int ordinal, long value) {
+    primitives()[ordinal] = value;
+    values[ordinal] = LONG_CELL;
+  }
+
+  /**
+   * Sets a column to a double value, stored unboxed.
+   *
+   * @param ordinal the column ordinal
+   * @param value the column value
+   */
+  public void setDouble(int ordinal, double value) {
+    primitives()[ordinal] = Double.doubleToRawLongBits(value);
+    values[ordinal] = DOUBLE_CELL;
+  }
+
+  private long[] primitives() {
+    if (primitives == null) {
+      primitives = new long[values.length];
+    }
+    return primitives;
+  }
+
+  private Number number(int ordinal, Object value) {
+    if (!(value instanceof Number)) {
+      throw new IllegalStateException(String.format("Field '%s' is not numeric", schema.getName(ordinal)));
+    }
+    return (Number) value;
+  }
+
+  @Override
+  public boolean isNull(String name) {
+    int ordinal = schema.indexOf(name);
+    return ordinal >= 0 ? isNull(ordinal) : super.isNull(name);
+  }
+
+  @Override
+  public boolean isNumeric(String name) {
+    int ordinal = schema.indexOf(name);
+    return ordinal >= 0 ? isNumeric(ordinal) : super.isNumeric(name);
+  }
+
+  @Override
+  public long getLong(String name) {
+    int ordinal = schema.indexOf(name);
+    return ordinal >= 0 ? getLong(ordinal) : super.getLong(name);
+  }
+
+  @Override
+  public double getDouble(String name) {
+    int ordinal = schema.indexOf(name);
+    return ordinal >= 0 ? getDouble(ordinal) : super.getDouble(name);
+  }
+
+  @Override
+  public void setLong(String name, long value) {
+    int ordinal = schema.indexOf(name);
+    if (ordinal >= 0) {
+      setLong(ordinal, value);
+    } else {
+      super.setLong(name, value);
+    }
+  }
+
+  @Override
+  public void setDouble(String name, double value) {
+    int ordinal = schema.indexOf(name);
+    if (ordinal >= 0) {
+      setDouble(ordinal, value);
+    } else {
+      super.setDouble(name, value);
+    }
+  }
+
+  @Override
+  public void add(String name, Object value) {
+    int ordinal = schema.indexOf(name);
+    if (ordinal >= 0) {
+      values[ordinal] = value;
+    } else {
+      super.add(name, value);
+    }
+  }
+
+  @Override
+  public Object getValue(String name) {
+    int ordinal = schema.indexOf(name);
+    if (ordinal >= 0) {
+      return get(ordinal);
+    }
+    return super.getValue(name);
+  }
+
+  /**
+   * Checks if the row has a field with the given name. Every schema column is present, even when null.
+   *
+   * @param name the field name
+   * @return true if the row has the field, false otherwise
+   */
+  @Override
+  public boolean has(String name) {
+    return schema.indexOf(name) >= 0 || super.has(name);
+  }
+
+  @Override
+  public Set<String> getFields() {
+    Set<String> fields = new LinkedHashSet<>(schema.getNames());
+    Map<String, Object> extra = getWrittenValues();
+    if (extra != null) {
+      fields.addAll(extra.keySet());
+    }
+    return fields;
+  }
+
+  /**
+   * Gets a copy of the fields. Unlike {@link Row#getValues()}, changes to the returned map are not written
+   * back to the row.
+   *
+   * @return the fields
+   */
+  @Override
+  public Map<String, Object> getValues() {
+    Map<String, Object> fields = new LinkedHashMap<>();
+    for (int i = 0; i < values.length; i++) {
+      fields.put(schema.getName(i), get(i));
+    }
+    Map<String, Object> extra = getWrittenValues();
+    if (extra != null) {
+      fields.putAll(extra);
+    }
+    return fields;
+  }
+}
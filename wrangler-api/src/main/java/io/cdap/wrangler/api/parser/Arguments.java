@@ -0,0 +1,186 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api.parser;
+
+/**
+ * This class <code>Arguments</code> holds the values of the arguments of one directive, bound to a
+ * {@link UsageDefinition}. Values are kept in an array in definition order and never change, so the
+ * arguments, and a directive built from them, can be shared by any number of threads. Each value can be
+ * read by name or, after resolving the name once with {@link UsageDefinition#indexOf(String)}, by index.
+ */
+public final class Arguments {
+  private final UsageDefinition definition;
+  private final Token[] values;
+
+  /**
+   * Constructor for bound arguments.
+   *
+   * @param definition the definition the values are bound to
+   * @param values the value of each argument in definition order, null for an absent optional argument
+   */
+  Arguments(UsageDefinition definition, Token[] values) {
+    this.definition = definition;
+    this.values = values;
+  }
+
+  /**
+   * @return the definition the values are bound to
+   */
+  public UsageDefinition getDefinition() {
+    return definition;
+  }
+
+  /**
+   * @return the number of arguments, present or not
+   */
+  public int size() {
+    return values.length;
+  }
+
+  /**
+   * Gets the value of an argument by position.
+   *
+   * @param index the index of the argument in definition order
+   * @return the value, or null if the argument is absent
+   * @throws IndexOutOfBoundsException if there is no argument at the index
+   */
+  public Token get(int index) {
+    if (index < 0 || index >= values.length) {
+      throw new IndexOutOfBoundsException("No argument at index " + index);
+    }
+    return values[index];
+  }
+
+  /**
+   * Gets the value of an argument by name.
+   *
+   * @param name the argument name
+   * @return the value, or null if the argument is absent or not defined
+   */
+  public Token get(String name) {
+    int index = definition.indexOf(name);
+    return index < 0 ? null : values[index];
+  }
+
+  /**
+   * @param name the argument name
+   * @return true if the argument has a value
+   */
+  public boolean has(String name) {
+    return get(name) != null;
+  }
+
+  /**
+   * @param name the name of a column name argument
+   * @return the column name, or null if the argument is absent
+   * @throws IllegalArgumentException if the argument is of another type
+   */
+  public String columnName(String name) {
+    Token token = get(name, TokenType.COLUMN_NAME, null);
+    return token == null ? null : (String) token.value();
+  }
+
+  /**
+   * @param name the name of a text or string argument
+   * @return the text, or null if the argument is absent
+   * @throws IllegalArgumentException if the argument is of another type
+   */
+  public String text(String name) {
+    return text(name, null);
+  }
+
+  /**
+   * @param name the name of a text or string argument
+   * @param defaultValue the value of an absent argument
+   * @return the text
+   * @throws IllegalArgumentException if the argument is of another type
+   */
+  public String text(String name, String defaultValue) {
+    Token token = get(name, TokenType.TEXT, TokenType.STRING);
+    return token == null ? defaultValue : (String) token.value();
+  }
+
+  /**
+   * @param name the name of a boolean argument
+   * @param defaultValue the value of an absent argument
+   * @return the boolean value
+   * @throws IllegalArgumentException if the argument is of another type
+   */
+  public boolean bool(String name, boolean defaultValue) {
+    Token token = get(name, TokenType.BOOLEAN, null);
+    return token == null ? defaultValue : (Boolean) token.value();
+  }
+
+  /**
+   * @param name the name of an integer argument
+   * @param defaultValue the value of an absent argument
+   * @return the integer value
+   * @throws IllegalArgumentException if the argument is of another type
+   */
+  public int integer(String name, int defaultValue) {
+    Token token = get(name, TokenType.INTEGER, null);
+    return token == null ? defaultValue : (Integer) token.value();
+  }
+
+  /**
+   * @param name the name of a float or integer argument
+   * @param defaultValue the value of an absent argument
+   * @return the numeric value
+   * @throws IllegalArgumentException if the argument is of another type
+   */
+  public double floating(String name, double defaultValue) {
+    Token token = get(name, TokenType.FLOAT, TokenType.INTEGER);
+    return token == null ? defaultValue : ((Number) token.value()).doubleValue();
+  }
+
+  /**
+   * @param name the name of a byte size argument
+   * @return the byte size, or null if the argument is absent
+   * @throws IllegalArgumentException if the argument is of another type
+   */
+  public ByteSize byteSize(String name) {
+    return (ByteSize) get(name, TokenType.BYTE_SIZE, null);
+  }
+
+  /**
+   * @param name the name of a time duration argument
+   * @return the time duration, or null if the argument is absent
+   * @throws IllegalArgumentException if the argument is of another type
+   */
+  public TimeDuration timeDuration(String name) {
+    return (TimeDuration) get(name, TokenType.TIME_DURATION, null);
+  }
+
+  /**
+   * @param name the name of a properties argument
+   * @return the properties, whose entries are parsed once and kept, or null if the argument is absent
+   * @throws IllegalArgumentException if the argument is of another type
+   */
+  public PropertiesToken properties(String name) {
+    return (PropertiesToken) get(name, TokenType.PROPERTIES, null);
+  }
+
+  private Token get(String name, TokenType type, TokenType alternative) {
+    Token token = get(name);
+    if (token != null && token.type() != type && token.type() != alternative) {
+      throw new IllegalArgumentException(
+        String.format("Argument '%s' of directive '%s' is %s, not %s", name, definition.getName(),
+                      token.type(), type));
+    }
+    return token;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class <code>ByteSequence</code> lets the {@link ByteSize} and {@link TimeDuration} scanners read
+ * UTF-8 bytes in place. Units are ASCII except for <code>μ</code>, so ASCII bytes map to the same chars, a
+ * single two-byte <code>μ</code> is read as one char, and any other non-ASCII byte reads as U+FFFD, which no
+ * scanner accepts. No string is built unless the text has to appear in an error message.
+ */
+final class ByteSequence implements CharSequence {
+  private static final byte MU_FIRST = (byte) 0xCE;
+  private static final byte MU_SECOND = (byte) 0xBC;
+  private static final char INVALID = '�';
+
+  private final ByteBuffer buffer;
+  private final int offset;
+  private final int length;
+  // Char index of the μ, whose two bytes read as one char, or -1 if there is none
+  private final int mu;
+
+  /**
+   * Constructor for a view of bytes, which are read with absolute gets, so the buffer is not modified.
+   *
+   * @param buffer the buffer
+   * @param offset the index of the first byte
+   * @param byteLength the number of bytes
+   */
+  ByteSequence(ByteBuffer buffer, int offset, int byteLength) {
+    this.buffer = buffer;
+    this.offset = offset;
+    int found = -1;
+    for (int i = 0; i + 1 < byteLength; i++) {
+      if (buffer.get(offset + i) == MU_FIRST && buffer.get(offset + i + 1) == MU_SECOND) {
+        found = i;
+        break;
+      }
+    }
+    this.mu = found;
+    this.length = found < 0 ? byteLength : byteLength - 1;
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for length %d", index, length));
+    }
+    if (index == mu) {
+      return 'μ';
+    }
+    byte b = buffer.get(offset + (mu >= 0 && index > mu ? index + 1 : index));
+    return b >= 0 ? (char) b : INVALID;
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return new StringBuilder(end - start).append(this, start, end);
+  }
+
+  @Override
+  public String toString() {
+    int byteLength = mu < 0 ? length : length + 1;
+    byte[] bytes = new byte[byteLength];
+    for (int i = 0; i < byteLength; i++) {
+      bytes[i] = buffer.get(offset + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -16,33 +16,43 @@
 
 package io.cdap.wrangler.api.parser;
 
+import io.cdap.wrangler.api.BoundedCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class <code>ByteSize</code> represents a byte size token in the recipe.
  * It supports standard size units (B, KB, MB, GB, TB, PB) with conversion between them.
+ * Besides the double {@link #value()}, the size is kept as an exact whole number of bytes, see
+ * {@link #toBytes()}. Sizes are read by a single-pass scanner that accepts the same text as the pattern
+ * <code>\d+(\.\d+)?\s*[KkMmGgTtPp]?[Bb]</code>, after trimming.
  */
 public class ByteSize extends Token<Double> {
-  // Regex pattern for parsing byte size values with units
-  private static final Pattern PATTERN = Pattern.compile("^(\\d+(?:\\.\\d+)?)\\s*([KkMmGgTtPp]?[Bb])$");
+  // Units indexed by the unit index the scanner returns, which is their ordinal
+  private static final SizeUnit[] UNITS = SizeUnit.values();
+  
+  // Bits of a scan result that hold the unit index
+  private static final int UNIT_BITS = 3;
   
-  // Conversion factors (using binary prefixes: 1KB = 1024B)
-  private static final int KB_TO_B = 1024;
-  private static final int MB_TO_B = 1024 * KB_TO_B;
-  private static final int GB_TO_B = 1024 * MB_TO_B;
-  private static final long TB_TO_B = 1024L * GB_TO_B;
-  private static final long PB_TO_B = 1024L * TB_TO_B;
+  // Number of distinct texts kept by the cache behind {@link #of(String)}
+  private static final int CACHE_CAPACITY = 4096;
   
-  // Original string representation
-  private final String originalValue;
+  // Canonical instances of recently parsed texts
+  private static final BoundedCache<String, ByteSize> CACHE = new BoundedCache<>(CACHE_CAPACITY);
+  
+  // Text of a size created from a number, built on first use; parsed sizes keep their text in the token
+  private String formatted;
   
   // Converted value in bytes
   private final double bytes;
   
+  // Converted value in whole bytes, saturated to the range of a long
+  private final long exactBytes;
+  
   // Unit used in the original value
-  private final String unit;
+  private final SizeUnit unit;
   
   /**
    * Constructor for a byte size token.
@@ -52,63 +62,256 @@ public class ByteSize extends Token<Double> {
    */
   public ByteSize(String value) throws SyntaxError {
     super(value);
-    this.originalValue = value;
     
     // Parse the value and unit
-    Matcher matcher = PATTERN.matcher(value.trim());
-    if (!matcher.matches()) {
-      throw new SyntaxError(
-        String.format("Invalid byte size format '%s'. Expected format: <number><unit> (e.g., 10KB, 2.5MB)", value));
+    long scanned = scan(value);
+    int start = NumberScanner.trimStart(value);
+    int end = (int) (scanned >>> UNIT_BITS);
+    int unitIndex = (int) (scanned & ((1 << UNIT_BITS) - 1));
+    this.unit = UNITS[unitIndex];
+    
+    // Convert to bytes based on the unit
+    long factor = unit.toBytes();
+    this.bytes = NumberScanner.decimal(value, start, end) * factor;
+    this.exactBytes = ExactMath.multiply(value, start, end, factor);
+  }
+  
+  /**
+   * Parses a byte size straight to a number of bytes, without creating a token or any intermediate string.
+   * The result is the same as <code>new ByteSize(value).value()</code>.
+   *
+   * @param value the byte size expression (e.g., "10KB", "2.5MB", "1GB")
+   * @return the value in bytes
+   * @throws SyntaxError if the value cannot be parsed as a byte size
+   */
+  public static double parseBytes(CharSequence value) throws SyntaxError {
+    long scanned = scan(value);
+    int end = (int) (scanned >>> UNIT_BITS);
+    int unitIndex = (int) (scanned & ((1 << UNIT_BITS) - 1));
+    return NumberScanner.decimal(value, NumberScanner.trimStart(value), end) * UNITS[unitIndex].toBytes();
+  }
+  
+  /**
+   * Parses a byte size straight to a whole number of bytes, without creating a token or any intermediate
+   * string. The result is the same as <code>new ByteSize(value).toBytes()</code>, so it stays exact where
+   * {@link #parseBytes(CharSequence)} has no double for the value.
+   *
+   * @param value the byte size expression (e.g., "10KB", "2.5MB", "1GB")
+   * @return the value in whole bytes, rounded half up and saturated to the range of a long
+   * @throws SyntaxError if the value cannot be parsed as a byte size
+   */
+  public static long parseExactBytes(CharSequence value) throws SyntaxError {
+    long scanned = scan(value);
+    int end = (int) (scanned >>> UNIT_BITS);
+    int unitIndex = (int) (scanned & ((1 << UNIT_BITS) - 1));
+    return ExactMath.multiply(value, NumberScanner.trimStart(value), end, UNITS[unitIndex].toBytes());
+  }
+  
+  /**
+   * Parses a byte size from UTF-8 bytes in place, without decoding them into a string. The bytes between the
+   * buffer's position and limit are read; the position is not changed, and direct or memory-mapped buffers
+   * work the same as heap ones.
+   *
+   * @param buffer the buffer holding the byte size expression
+   * @return the value in bytes
+   * @throws SyntaxError if the bytes cannot be parsed as a byte size
+   */
+  public static double parseBytes(ByteBuffer buffer) throws SyntaxError {
+    return parseBytes(new ByteSequence(buffer, buffer.position(), buffer.remaining()));
+  }
+  
+  /**
+   * Parses a byte size from a range of UTF-8 bytes in place, without decoding them into a string.
+   *
+   * @param bytes the array holding the byte size expression
+   * @param offset the index of the first byte
+   * @param length the number of bytes
+   * @return the value in bytes
+   * @throws SyntaxError if the bytes cannot be parsed as a byte size
+   */
+  public static double parseBytes(byte[] bytes, int offset, int length) throws SyntaxError {
+    return parseBytes(new ByteSequence(ByteBuffer.wrap(bytes), offset, length));
+  }
+  
+  /**
+   * Scans a byte size expression in one pass.
+   *
+   * @param value the byte size expression
+   * @return the index after the number, shifted left by {@link #UNIT_BITS} and combined with the index of
+   *   the unit in {@link #UNITS}
+   * @throws SyntaxError if the value cannot be parsed as a byte size
+   */
+  private static long scan(CharSequence value) throws SyntaxError {
+    int length = NumberScanner.trimEnd(value);
+    int end = NumberScanner.scanDecimal(value, NumberScanner.trimStart(value), length);
+    if (end < 0) {
+      throw invalid(value);
     }
     
-    // Extract the numeric value and unit
-    double numericValue = Double.parseDouble(matcher.group(1));
-    String unitStr = matcher.group(2).toUpperCase(); // Normalize to uppercase
-    this.unit = unitStr;
+    int i = end;
+    while (i < length && NumberScanner.isSpace(value.charAt(i))) {
+      i++;
+    }
     
-    // Convert to bytes based on the unit
-    this.bytes = convertToBytes(numericValue, unitStr);
+    // An optional prefix letter, then the B that every unit ends with
+    int unitIndex = 0;
+    if (i < length) {
+      switch (value.charAt(i)) {
+        case 'K':
+        case 'k':
+          unitIndex = 1;
+          break;
+        case 'M':
+        case 'm':
+          unitIndex = 2;
+          break;
+        case 'G':
+        case 'g':
+          unitIndex = 3;
+          break;
+        case 'T':
+        case 't':
+          unitIndex = 4;
+          break;
+        case 'P':
+        case 'p':
+          unitIndex = 5;
+          break;
+        default:
+          break;
+      }
+    }
+    if (unitIndex > 0) {
+      i++;
+    }
+    if (i != length - 1 || (value.charAt(i) != 'B' && value.charAt(i) != 'b')) {
+      throw invalid(value);
+    }
+    return ((long) end << UNIT_BITS) | unitIndex;
+  }
+  
+  private static SyntaxError invalid(CharSequence value) {
+    return new SyntaxError(
+      String.format("Invalid byte size format '%s'. Expected format: <number><unit> (e.g., 10KB, 2.5MB)", value));
+  }
+  
+  /**
+   * Gets the byte size of a text, reusing the instance created for the same text when it is still cached.
+   * Columns with few distinct values then parse each value once and share one instance per value. The
+   * cache is bounded and drops the least recently used texts.
+   *
+   * @param value the byte size expression (e.g., "4KB")
+   * @return the byte size
+   * @throws SyntaxError if the value cannot be parsed as a byte size
+   */
+  public static ByteSize of(String value) throws SyntaxError {
+    return CACHE.get(value, ByteSize::new);
+  }
+  
+  /**
+   * @return the number of {@link #of(String)} calls that found their text in the cache
+   */
+  public static long getCacheHits() {
+    return CACHE.hitCount();
+  }
+  
+  /**
+   * @return the number of {@link #of(String)} calls that had to parse their text
+   */
+  public static long getCacheMisses() {
+    return CACHE.missCount();
   }
   
   /**
-   * Constructor for a byte size from a raw byte value.
-   * Used internally for conversions.
+   * Constructor for a byte size from a raw byte value, without any text to parse.
    *
    * @param bytes the byte value
-   * @param unit the unit to display
+   * @param exactBytes the byte value in whole bytes
    */
-  private ByteSize(double bytes, String unit) throws SyntaxError {
-    super(bytes + "B");
-    this.originalValue = bytes + unit;
+  private ByteSize(double bytes, long exactBytes) {
+    super(null);
     this.bytes = bytes;
+    this.exactBytes = exactBytes;
+    this.unit = SizeUnit.B;
+  }
+  
+  /**
+   * Constructor for a byte size restored from its parts by {@link RecipeCodec}, without any text to parse.
+   *
+   * @param original the original string value
+   * @param bytes the value in bytes
+   * @param exactBytes the value in whole bytes
+   * @param unit the unit used in the original value
+   */
+  ByteSize(String original, double bytes, long exactBytes, SizeUnit unit) {
+    super(original);
+    this.bytes = bytes;
+    this.exactBytes = exactBytes;
     this.unit = unit;
   }
   
   /**
-   * Convert a value with a unit to bytes.
+   * Creates a byte size from a whole number of bytes. No text is built or parsed.
    *
-   * @param value the numeric value
-   * @param unit the unit string (B, KB, MB, GB, TB, PB)
-   * @return the value in bytes
-   * @throws SyntaxError if the unit is not recognized
-   */
-  private double convertToBytes(double value, String unit) throws SyntaxError {
-    switch (unit.toUpperCase()) {
-      case "B":
-        return value;
-      case "KB":
-        return value * KB_TO_B;
-      case "MB":
-        return value * MB_TO_B;
-      case "GB":
-        return value * GB_TO_B;
-      case "TB":
-        return value * TB_TO_B;
-      case "PB":
-        return value * PB_TO_B;
-      default:
-        throw new SyntaxError(String.format("Unknown byte size unit: %s", unit));
-    }
+   * @param bytes the size in bytes
+   * @return the byte size
+   */
+  public static ByteSize ofBytes(long bytes) {
+    return new ByteSize((double) bytes, bytes);
+  }
+  
+  /**
+   * Creates a byte size from a number of bytes, which may have a fraction. No text is built or parsed.
+   *
+   * @param bytes the size in bytes
+   * @return the byte size, whose exact value is rounded to the nearest byte
+   */
+  public static ByteSize ofBytes(double bytes) {
+    return new ByteSize(bytes, Math.round(bytes));
+  }
+  
+  /**
+   * Writes a number of bytes in its best unit, with at most two decimals, so 1536 bytes are written as
+   * <code>1.5KB</code>. The best unit is the largest one in which the value is at least one. Nothing is
+   * allocated.
+   *
+   * @param bytes the value in bytes
+   * @param out where to write
+   */
+  public static void formatBytes(double bytes, StringBuilder out) {
+    ReadableFormat.SIZES.format(bytes, out);
+  }
+  
+  /**
+   * Writes a number of bytes in its best unit, as {@link #formatBytes(double, StringBuilder)} does.
+   *
+   * @param bytes the value in bytes
+   * @param out where to write
+   * @throws IOException if writing fails
+   */
+  public static void formatBytes(double bytes, Appendable out) throws IOException {
+    ReadableFormat.SIZES.format(bytes, out);
+  }
+  
+  /**
+   * Writes this byte size in its best unit, whatever unit it was written in, as
+   * {@link #formatBytes(double, StringBuilder)} does.
+   *
+   * @param out where to write
+   */
+  public void formatTo(StringBuilder out) {
+    formatBytes(bytes, out);
+  }
+  
+  /**
+   * Writes this byte size in its best unit, whatever unit it was written in, as
+   * {@link #formatBytes(double, StringBuilder)} does.
+   *
+   * @param out where to write
+   * @throws IOException if writing fails
+   */
+  public void formatTo(Appendable out) throws IOException {
+    formatBytes(bytes, out);
   }
   
   /**
@@ -119,35 +322,53 @@ public class ByteSize extends Token<Double> {
    * @throws SyntaxError if the target unit is not recognized
    */
   public double convertTo(String targetUnit) throws SyntaxError {
-    switch (targetUnit.toUpperCase()) {
-      case "B":
-        return bytes;
-      case "KB":
-        return bytes / KB_TO_B;
-      case "MB":
-        return bytes / MB_TO_B;
-      case "GB":
-        return bytes / GB_TO_B;
-      case "TB":
-        return bytes / TB_TO_B;
-      case "PB":
-        return bytes / PB_TO_B;
-      default:
-        throw new SyntaxError(String.format("Unknown byte size unit: %s", targetUnit));
-    }
+    return convertTo(SizeUnit.parse(targetUnit));
+  }
+  
+  /**
+   * Convert the byte size to a specified unit.
+   *
+   * @param targetUnit the target unit
+   * @return the value in the target unit
+   */
+  public double convertTo(SizeUnit targetUnit) {
+    return targetUnit.fromBytes(bytes);
   }
   
   /**
    * @return the original string value
    */
   public String getOriginalValue() {
-    return originalValue;
+    String original = super.raw();
+    if (original == null) {
+      original = formatted;
+    }
+    if (original == null) {
+      original = ExactMath.toPlainString(bytes) + unit.getSymbol();
+      formatted = original;
+    }
+    return original;
+  }
+  
+  /**
+   * @return the original string value
+   */
+  @Override
+  public String raw() {
+    return getOriginalValue();
   }
   
   /**
    * @return the unit used in the original value
    */
   public String getUnit() {
+    return unit.getSymbol();
+  }
+  
+  /**
+   * @return the unit used in the original value
+   */
+  public SizeUnit getSizeUnit() {
     return unit;
   }
   
@@ -159,6 +380,16 @@ public class ByteSize extends Token<Double> {
     return bytes;
   }
   
+  /**
+   * Gets the size as an exact whole number of bytes. Fractions of a byte are rounded half up, and sizes
+   * beyond the range of a long saturate at {@link Long#MAX_VALUE}.
+   *
+   * @return the value in whole bytes
+   */
+  public long toBytes() {
+    return exactBytes;
+  }
+  
   /**
    * @return token type BYTE_SIZE
    */
@@ -186,6 +417,6 @@ public class ByteSize extends Token<Double> {
   
   @Override
   public String toString() {
-    return originalValue;
+    return getOriginalValue();
   }
 }
\ No newline at end of file
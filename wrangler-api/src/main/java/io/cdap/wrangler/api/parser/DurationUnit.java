@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api.parser;
+
+/**
+ * This enum <code>DurationUnit</code> represents the units of a {@link TimeDuration}, from smallest to
+ * largest. Factors between every pair of units are computed once, so converting a value is a single
+ * multiplication.
+ */
+public enum DurationUnit {
+  /**
+   * Nanoseconds.
+   */
+  NS("ns", 1L),
+  
+  /**
+   * Microseconds, also written <code>us</code>.
+   */
+  US("μs", 1_000L),
+  
+  /**
+   * Milliseconds.
+   */
+  MS("ms", 1_000_000L),
+  
+  /**
+   * Seconds.
+   */
+  S("s", 1_000_000_000L),
+  
+  /**
+   * Minutes.
+   */
+  M("m", 60_000_000_000L),
+  
+  /**
+   * Hours.
+   */
+  H("h", 3_600_000_000_000L),
+  
+  /**
+   * Days.
+   */
+  D("d", 86_400_000_000_000L);
+  
+  // Factor from the unit of the first index to the unit of the second
+  private static final double[][] RATIOS = new double[values().length][values().length];
+  
+  static {
+    for (DurationUnit from : values()) {
+      for (DurationUnit to : values()) {
+        RATIOS[from.ordinal()][to.ordinal()] = (double) from.nanos / to.nanos;
+      }
+    }
+  }
+  
+  private final String symbol;
+  private final long nanos;
+  
+  DurationUnit(String symbol, long nanos) {
+    this.symbol = symbol;
+    this.nanos = nanos;
+  }
+  
+  /**
+   * @return the symbol of the unit, such as <code>ms</code>
+   */
+  public String getSymbol() {
+    return symbol;
+  }
+  
+  /**
+   * @return the number of nanoseconds in one unit
+   */
+  public long toNanos() {
+    return nanos;
+  }
+  
+  /**
+   * Converts a number of nanoseconds to this unit.
+   *
+   * @param nanos the value in nanoseconds
+   * @return the value in this unit
+   */
+  public double fromNanos(double nanos) {
+    // Divide rather than multiply by an inverse, since most factors are not powers of two
+    return nanos / this.nanos;
+  }
+  
+  /**
+   * Converts a value in this unit to another unit.
+   *
+   * @param value the value in this unit
+   * @param target the unit to convert to
+   * @return the value in the target unit
+   */
+  public double convert(double value, DurationUnit target) {
+    return value * RATIOS[ordinal()][target.ordinal()];
+  }
+  
+  /**
+   * Finds a unit by its symbol. Symbols are case-sensitive, since <code>m</code> is minutes; <code>us</code>
+   * is accepted for microseconds.
+   *
+   * @param symbol the unit symbol (ns, μs or us, ms, s, m, h, d)
+   * @return the unit
+   * @throws SyntaxError if the unit is not recognized
+   */
+  public static DurationUnit parse(String symbol) throws SyntaxError {
+    if ("us".equals(symbol)) {
+      return US;
+    }
+    for (DurationUnit unit : values()) {
+      if (unit.symbol.equals(symbol)) {
+        return unit;
+      }
+    }
+    throw new SyntaxError(String.format("Unknown time duration unit: %s", symbol));
+  }
+}
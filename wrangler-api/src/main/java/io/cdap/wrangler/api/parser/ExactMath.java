@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api.parser;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * This class <code>ExactMath</code> holds the long arithmetic shared by {@link ByteSize} and
+ * {@link TimeDuration}. Results that do not fit in a long saturate at {@link Long#MAX_VALUE} or
+ * {@link Long#MIN_VALUE} instead of wrapping around.
+ */
+final class ExactMath {
+  private ExactMath() {
+  }
+
+  /**
+   * Multiplies a non-negative decimal number by a unit factor, rounding half up to a whole number.
+   *
+   * @param text the text holding the number
+   * @param start the index of the first digit
+   * @param end the index after the last digit
+   * @param factor the unit factor
+   * @return the product, saturated to the range of a long
+   */
+  static long multiply(CharSequence text, int start, int end, long factor) {
+    // Any run of up to 18 decimal digits fits in a long
+    if (end - start <= 18) {
+      long value = 0;
+      int i = start;
+      for (; i < end && text.charAt(i) != '.'; i++) {
+        value = value * 10 + (text.charAt(i) - '0');
+      }
+      if (i == end) {
+        long high = Math.multiplyHigh(value, factor);
+        long low = value * factor;
+        // The product fits when the high word is only the sign extension of the low word
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+          return low;
+        }
+        return Long.MAX_VALUE;
+      }
+    }
+    // Fractions and very long numbers are rare enough to go through BigDecimal
+    return saturate(new BigDecimal(text.subSequence(start, end).toString()).multiply(BigDecimal.valueOf(factor))
+                      .setScale(0, RoundingMode.HALF_UP).toBigInteger());
+  }
+
+  /**
+   * Adds two longs.
+   *
+   * @param a the first value
+   * @param b the second value
+   * @return the sum, saturated to the range of a long
+   */
+  static long add(long a, long b) {
+    long sum = a + b;
+    // The sum overflowed if both operands have a sign different from the result
+    if (((a ^ sum) & (b ^ sum)) < 0) {
+      return a < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+    return sum;
+  }
+
+  /**
+   * Narrows a big integer to a long.
+   *
+   * @param value the value
+   * @return the value, saturated to the range of a long
+   */
+  static long saturate(BigInteger value) {
+    if (value.bitLength() < Long.SIZE) {
+      return value.longValue();
+    }
+    return value.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+  }
+
+  /**
+   * Formats a number without an exponent, so the text can be parsed back as a byte size or duration.
+   *
+   * @param value the value
+   * @return the plain decimal text
+   */
+  static String toPlainString(double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      return Double.toString(value);
+    }
+    if (value == Math.rint(value) && Math.abs(value) < 0x1p63) {
+      return Long.toString((long) value);
+    }
+    return BigDecimal.valueOf(value).toPlainString();
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api.parser;
+
+/**
+ * This class <code>NumberScanner</code> holds the character-level helpers of the hand-written
+ * {@link ByteSize} and {@link TimeDuration} parsers. They read straight from a {@link CharSequence}, so a
+ * value is parsed without substrings, matchers or boxed numbers.
+ */
+final class NumberScanner {
+  // Mantissas below 2^53 and powers of ten up to 10^22 are exact doubles, so their quotient is correctly rounded
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+  private static final double[] POWERS_OF_TEN = new double[23];
+  
+  // Any run of up to 18 decimal digits fits in a long
+  private static final int SAFE_DIGITS = 18;
+
+  static {
+    POWERS_OF_TEN[0] = 1.0;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private NumberScanner() {
+  }
+
+  /**
+   * @param c the character
+   * @return true if the character is an ASCII digit
+   */
+  static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * @param c the character
+   * @return true if the character is whitespace, as matched by <code>\s</code> in a regular expression
+   */
+  static boolean isSpace(char c) {
+    return c == ' ' || (c >= '\t' && c <= '\r');
+  }
+
+  /**
+   * @param text the text
+   * @return the index of the first character that {@link String#trim()} would keep
+   */
+  static int trimStart(CharSequence text) {
+    int start = 0;
+    while (start < text.length() && text.charAt(start) <= ' ') {
+      start++;
+    }
+    return start;
+  }
+
+  /**
+   * @param text the text
+   * @return the index after the last character that {@link String#trim()} would keep
+   */
+  static int trimEnd(CharSequence text) {
+    int end = text.length();
+    while (end > 0 && text.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    return end;
+  }
+
+  /**
+   * Scans an unsigned decimal number, digits with an optional fraction of at least one digit.
+   *
+   * @param text the text
+   * @param start the index to start at
+   * @param end the index to stop at
+   * @return the index after the number, or -1 if there is no valid number at the start index
+   */
+  static int scanDecimal(CharSequence text, int start, int end) {
+    int i = start;
+    while (i < end && isDigit(text.charAt(i))) {
+      i++;
+    }
+    if (i == start) {
+      return -1;
+    }
+    if (i < end && text.charAt(i) == '.') {
+      int fraction = ++i;
+      while (i < end && isDigit(text.charAt(i))) {
+        i++;
+      }
+      if (i == fraction) {
+        return -1;
+      }
+    }
+    return i;
+  }
+
+  /**
+   * Converts an unsigned decimal number, as found by {@link #scanDecimal}, to the nearest double. The
+   * result is the same as {@link Double#parseDouble(String)} on the same characters.
+   *
+   * @param text the text
+   * @param start the index of the first digit
+   * @param end the index after the last digit
+   * @return the value
+   */
+  static double decimal(CharSequence text, int start, int end) {
+    long mantissa = 0;
+    int digits = 0;
+    int scale = 0;
+    boolean fraction = false;
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (c == '.') {
+        fraction = true;
+        continue;
+      }
+      if (++digits > SAFE_DIGITS) {
+        // Too many digits for the fast path, which is rare enough to allocate for
+        return Double.parseDouble(text.subSequence(start, end).toString());
+      }
+      mantissa = mantissa * 10 + (c - '0');
+      if (fraction) {
+        scale++;
+      }
+    }
+    if (mantissa < MAX_EXACT_MANTISSA) {
+      return mantissa / POWERS_OF_TEN[scale];
+    }
+    return Double.parseDouble(text.subSequence(start, end).toString());
+  }
+}
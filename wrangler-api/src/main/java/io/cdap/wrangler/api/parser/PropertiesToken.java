@@ -16,11 +16,22 @@
 
 package io.cdap.wrangler.api.parser;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
- * This class <code>PropertiesToken</code> represents a properties token in the recipe.
+ * This class <code>PropertiesToken</code> represents a properties token in the recipe, such as
+ * <code>{quantiles=true, window=5 m; limit='1,5GB'}</code>. Entries are separated by commas or semicolons and
+ * written <code>key=value</code>; values may be quoted, and a nested <code>{...}</code> value is kept whole.
+ * The text is split into an immutable map the first time an entry is read, and the map is kept, so looking
+ * options up for every row does not scan the text again.
  */
 public class PropertiesToken extends Token<String> {
   private final String value;
+  
+  // Parsed entries, built on first access; building is idempotent, so a race only repeats the work
+  private volatile Map<String, String> properties;
 
   /**
    * Constructor for a properties token.
@@ -40,6 +51,123 @@ public class PropertiesToken extends Token<String> {
     return value;
   }
 
+  /**
+   * Gets the entries of the properties, parsing them on first use. An entry without <code>=</code> has an
+   * empty value, and when a key appears twice the last value wins.
+   *
+   * @return an immutable map of the entries, in the order they are written
+   */
+  public Map<String, String> getProperties() {
+    Map<String, String> parsed = properties;
+    if (parsed == null) {
+      parsed = parse(value);
+      properties = parsed;
+    }
+    return parsed;
+  }
+
+  /**
+   * @param key the key
+   * @return true if there is an entry for the key
+   */
+  public boolean has(String key) {
+    return getProperties().containsKey(key);
+  }
+
+  /**
+   * @param key the key
+   * @return the value, or null if there is no entry for the key
+   */
+  public String getString(String key) {
+    return getProperties().get(key);
+  }
+
+  /**
+   * @param key the key
+   * @param defaultValue the value when there is no entry for the key
+   * @return the value
+   */
+  public String getString(String key, String defaultValue) {
+    String entry = getString(key);
+    return entry == null ? defaultValue : entry;
+  }
+
+  /**
+   * @param key the key
+   * @param defaultValue the value when there is no entry for the key
+   * @return the value as an int
+   * @throws NumberFormatException if the value is not an int
+   */
+  public int getInt(String key, int defaultValue) {
+    String entry = getString(key);
+    return entry == null ? defaultValue : Integer.parseInt(entry);
+  }
+
+  /**
+   * @param key the key
+   * @param defaultValue the value when there is no entry for the key
+   * @return the value as a long
+   * @throws NumberFormatException if the value is not a long
+   */
+  public long getLong(String key, long defaultValue) {
+    String entry = getString(key);
+    return entry == null ? defaultValue : Long.parseLong(entry);
+  }
+
+  /**
+   * @param key the key
+   * @param defaultValue the value when there is no entry for the key
+   * @return the value as a double
+   * @throws NumberFormatException if the value is not a number
+   */
+  public double getDouble(String key, double defaultValue) {
+    String entry = getString(key);
+    return entry == null ? defaultValue : Double.parseDouble(entry);
+  }
+
+  /**
+   * @param key the key
+   * @param defaultValue the value when there is no entry for the key
+   * @return the value as a boolean, true only for <code>true</code> in any case
+   */
+  public boolean getBoolean(String key, boolean defaultValue) {
+    String entry = getString(key);
+    return entry == null ? defaultValue : Boolean.parseBoolean(entry);
+  }
+
+  /**
+   * Gets a byte size value, through the shared {@link ByteSize#of(String)} cache.
+   *
+   * @param key the key
+   * @return the byte size, or null if there is no entry for the key
+   * @throws SyntaxError if the value is not a byte size
+   */
+  public ByteSize getByteSize(String key) throws SyntaxError {
+    String entry = getString(key);
+    return entry == null ? null : ByteSize.of(entry);
+  }
+
+  /**
+   * Gets a time duration value, through the shared {@link TimeDuration#of(String)} cache.
+   *
+   * @param key the key
+   * @return the time duration, or null if there is no entry for the key
+   * @throws SyntaxError if the value is not a time duration
+   */
+  public TimeDuration getTimeDuration(String key) throws SyntaxError {
+    String entry = getString(key);
+    return entry == null ? null : TimeDuration.of(entry);
+  }
+
+  /**
+   * @param key the key
+   * @return the nested properties, or null if there is no entry for the key
+   */
+  public PropertiesToken getProperties(String key) {
+    String entry = getString(key);
+    return entry == null ? null : new PropertiesToken(entry);
+  }
+
   /**
    * @return token type PROPERTIES
    */
@@ -47,4 +175,64 @@ public class PropertiesToken extends Token<String> {
   public TokenType type() {
     return TokenType.PROPERTIES;
   }
-}
\ No newline at end of file
+
+  /**
+   * Splits properties text into entries. Separators and <code>=</code> inside quotes or nested braces do not
+   * count.
+   *
+   * @param text the properties text, with or without the outer braces
+   * @return the immutable entries
+   */
+  private static Map<String, String> parse(String text) {
+    int start = 0;
+    int end = text.length();
+    if (end - start >= 2 && text.charAt(start) == '{' && text.charAt(end - 1) == '}') {
+      start++;
+      end--;
+    }
+    
+    Map<String, String> entries = new LinkedHashMap<>();
+    int entry = start;
+    int equals = -1;
+    int depth = 0;
+    char quote = 0;
+    for (int i = start; i <= end; i++) {
+      // The end of the text closes the last entry, even inside an unterminated quote or brace
+      char c = i < end ? text.charAt(i) : ',';
+      if (i < end && quote != 0) {
+        if (c == '\\' && i + 1 < end) {
+          i++;
+        } else if (c == quote) {
+          quote = 0;
+        }
+      } else if (i < end && (c == '\'' || c == '"')) {
+        quote = c;
+      } else if (c == '{') {
+        depth++;
+      } else if (c == '}') {
+        depth--;
+      } else if (c == '=' && depth == 0 && equals < 0) {
+        equals = i;
+      } else if (i == end || ((c == ',' || c == ';') && depth == 0)) {
+        String key = text.substring(entry, equals < 0 ? i : equals).trim();
+        if (!key.isEmpty()) {
+          entries.put(key, equals < 0 ? "" : unquote(text.substring(equals + 1, i).trim()));
+        }
+        entry = i + 1;
+        equals = -1;
+      }
+    }
+    return Collections.unmodifiableMap(entries);
+  }
+
+  private static String unquote(String value) {
+    if (value.length() >= 2) {
+      char quote = value.charAt(0);
+      if ((quote == '\'' || quote == '"') && value.charAt(value.length() - 1) == quote) {
+        return value.substring(1, value.length() - 1).replace("\\" + quote, String.valueOf(quote))
+          .replace("\\\\", "\\");
+      }
+    }
+    return value;
+  }
+}
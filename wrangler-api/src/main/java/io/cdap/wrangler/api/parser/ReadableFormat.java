@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api.parser;
+
+import java.io.IOException;
+
+/**
+ * This class <code>ReadableFormat</code> writes a value in its best unit, such as 1536 bytes as
+ * <code>1.5KB</code>. The best unit is the largest one in which the value is at least one, moving up a unit
+ * when rounding to two decimals reaches the next one. Digits are written one char at a time, so formatting
+ * allocates nothing.
+ */
+final class ReadableFormat {
+  static final ReadableFormat SIZES = sizes();
+  static final ReadableFormat DURATIONS = durations();
+  
+  // Values are written as whole hundredths of their unit
+  private static final long SCALE = 100;
+  
+  // Scaled values beyond this are not written digit by digit, since they could overflow a long
+  private static final double MAX_SCALED = 1e17;
+  
+  private final double[] factors;
+  private final String[] symbols;
+  
+  private ReadableFormat(double[] factors, String[] symbols) {
+    this.factors = factors;
+    this.symbols = symbols;
+  }
+  
+  private static ReadableFormat sizes() {
+    SizeUnit[] units = SizeUnit.values();
+    double[] factors = new double[units.length];
+    String[] symbols = new String[units.length];
+    for (int i = 0; i < units.length; i++) {
+      factors[i] = units[i].toBytes();
+      symbols[i] = units[i].getSymbol();
+    }
+    return new ReadableFormat(factors, symbols);
+  }
+  
+  private static ReadableFormat durations() {
+    DurationUnit[] units = DurationUnit.values();
+    double[] factors = new double[units.length];
+    String[] symbols = new String[units.length];
+    for (int i = 0; i < units.length; i++) {
+      factors[i] = units[i].toNanos();
+      symbols[i] = units[i].getSymbol();
+    }
+    return new ReadableFormat(factors, symbols);
+  }
+  
+  /**
+   * Writes a value in its best unit, with at most two decimals and no trailing zeros.
+   *
+   * @param value the value in the smallest unit
+   * @param out where to write
+   * @throws IOException if writing fails
+   */
+  void format(double value, Appendable out) throws IOException {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      out.append(Double.isNaN(value) ? "NaN" : value > 0 ? "Infinity" : "-Infinity").append(symbols[0]);
+      return;
+    }
+    
+    double magnitude = Math.abs(value);
+    int unit = factors.length - 1;
+    while (unit > 0 && magnitude < factors[unit]) {
+      unit--;
+    }
+    long scaled = Math.round(magnitude / factors[unit] * SCALE);
+    // Rounding can reach the next unit, as 1023.999KB does, which reads better as 1MB than as 1024KB
+    if (unit + 1 < factors.length && scaled >= Math.round(factors[unit + 1] / factors[unit] * SCALE)) {
+      unit++;
+      scaled = Math.round(magnitude / factors[unit] * SCALE);
+    }
+    
+    if (value < 0 && scaled != 0) {
+      out.append('-');
+    }
+    if (magnitude / factors[unit] * SCALE > MAX_SCALED) {
+      // Far beyond any real size or duration, so the rare string is not worth avoiding
+      out.append(ExactMath.toPlainString(Math.rint(magnitude / factors[unit])));
+    } else {
+      appendDigits(scaled / SCALE, out);
+      long fraction = scaled % SCALE;
+      if (fraction != 0) {
+        out.append('.').append((char) ('0' + fraction / 10));
+        if (fraction % 10 != 0) {
+          out.append((char) ('0' + fraction % 10));
+        }
+      }
+    }
+    out.append(symbols[unit]);
+  }
+  
+  /**
+   * Writes a value in its best unit to a builder, which cannot fail.
+   *
+   * @param value the value in the smallest unit
+   * @param out where to write
+   */
+  void format(double value, StringBuilder out) {
+    try {
+      format(value, (Appendable) out);
+    } catch (IOException e) {
+      // A StringBuilder never throws
+      throw new IllegalStateException(e);
+    }
+  }
+  
+  private static void appendDigits(long value, Appendable out) throws IOException {
+    long divisor = 1;
+    while (divisor <= value / 10) {
+      divisor *= 10;
+    }
+    for (; divisor > 0; divisor /= 10) {
+      out.append((char) ('0' + (value / divisor) % 10));
+    }
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * This class <code>RecipeCodec</code> writes parsed recipes in a compact binary form and reads them back, so
+ * a recipe can be parsed once and shipped to workers that load it without the grammar or any text parsing.
+ * Byte sizes and time durations keep their normalized and exact values, their unit and their original text.
+ *
+ * <p>The format is a header and a payload, all numbers big-endian:</p>
+ * <pre>
+ *   int     magic, "WRCP"
+ *   short   format version
+ *   int     payload length
+ *   int     CRC32 of the payload
+ *   payload int group count, then per group an int token count and per token a type code and its value
+ * </pre>
+ */
+public final class RecipeCodec {
+  // "WRCP", for wrangler compiled recipe
+  private static final int MAGIC = 0x57524350;
+  private static final short VERSION = 1;
+  private static final int HEADER_LENGTH = 14;
+
+  // Type codes, fixed so that reordering TokenType does not change the format
+  private static final byte DIRECTIVE_NAME = 1;
+  private static final byte COLUMN_NAME = 2;
+  private static final byte STRING = 3;
+  private static final byte TEXT = 4;
+  private static final byte INTEGER = 5;
+  private static final byte FLOAT = 6;
+  private static final byte BOOLEAN = 7;
+  private static final byte PROPERTIES = 8;
+  private static final byte BYTE_SIZE = 9;
+  private static final byte TIME_DURATION = 10;
+
+  private static final SizeUnit[] SIZE_UNITS = SizeUnit.values();
+  private static final DurationUnit[] DURATION_UNITS = DurationUnit.values();
+
+  private RecipeCodec() {
+  }
+
+  /**
+   * Writes the token groups of a recipe.
+   *
+   * @param directives the token groups, in recipe order
+   * @return the encoded recipe
+   * @throws IllegalArgumentException if a token is not one of the token classes of this package
+   */
+  public static byte[] encode(List<TokenGroup> directives) {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(payload)) {
+      out.writeInt(directives.size());
+      for (TokenGroup directive : directives) {
+        out.writeInt(directive.size());
+        for (Token token : directive) {
+          write(token, out);
+        }
+      }
+    } catch (IOException e) {
+      // Writing to memory never fails
+      throw new UncheckedIOException(e);
+    }
+    
+    byte[] body = payload.toByteArray();
+    CRC32 crc = new CRC32();
+    crc.update(body, 0, body.length);
+    return ByteBuffer.allocate(HEADER_LENGTH + body.length)
+      .putInt(MAGIC)
+      .putShort(VERSION)
+      .putInt(body.length)
+      .putInt((int) crc.getValue())
+      .put(body)
+      .array();
+  }
+
+  /**
+   * Reads the token groups of a recipe written by {@link #encode(List)}.
+   *
+   * @param encoded the encoded recipe
+   * @return an immutable list of immutable token groups, in recipe order
+   * @throws SyntaxError if the data is not an encoded recipe, has another format version, or is corrupt
+   */
+  public static List<TokenGroup> decode(byte[] encoded) throws SyntaxError {
+    ByteBuffer in = ByteBuffer.wrap(encoded);
+    try {
+      if (encoded.length < HEADER_LENGTH || in.getInt() != MAGIC) {
+        throw new SyntaxError("Invalid compiled recipe: bad header");
+      }
+      short version = in.getShort();
+      if (version != VERSION) {
+        throw new SyntaxError("Unsupported compiled recipe version " + version + ", expected " + VERSION);
+      }
+      int length = in.getInt();
+      int checksum = in.getInt();
+      if (length != in.remaining()) {
+        throw new SyntaxError("Invalid compiled recipe: expected " + length + " bytes, found " + in.remaining());
+      }
+      CRC32 crc = new CRC32();
+      crc.update(encoded, HEADER_LENGTH, length);
+      if ((int) crc.getValue() != checksum) {
+        throw new SyntaxError("Invalid compiled recipe: checksum mismatch");
+      }
+      
+      int groups = count(in);
+      List<TokenGroup> directives = new ArrayList<>(groups);
+      for (int g = 0; g < groups; g++) {
+        TokenGroup directive = new TokenGroup();
+        for (int t = count(in); t > 0; t--) {
+          directive.add(read(in));
+        }
+        directives.add(directive.toImmutable());
+      }
+      if (in.hasRemaining()) {
+        throw new SyntaxError("Invalid compiled recipe: trailing bytes");
+      }
+      return Collections.unmodifiableList(directives);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new SyntaxError("Invalid compiled recipe: truncated payload", e);
+    }
+  }
+
+  private static void write(Token token, DataOutputStream out) throws IOException {
+    switch (token.type()) {
+      case DIRECTIVE_NAME:
+        out.writeByte(DIRECTIVE_NAME);
+        writeString(cast(token, DirectiveName.class).value(), out);
+        break;
+      case COLUMN_NAME:
+        out.writeByte(COLUMN_NAME);
+        writeString(cast(token, ColumnName.class).value(), out);
+        break;
+      case STRING:
+        out.writeByte(STRING);
+        writeString(cast(token, TextToken.class).value(), out);
+        break;
+      case TEXT:
+        Text text = cast(token, Text.class);
+        out.writeByte(TEXT);
+        writeString(text.value(), out);
+        writeString(text.original(), out);
+        break;
+      case INTEGER:
+        out.writeByte(INTEGER);
+        out.writeInt(cast(token, IntegerToken.class).value());
+        break;
+      case FLOAT:
+        out.writeByte(FLOAT);
+        out.writeDouble(cast(token, FloatToken.class).value());
+        break;
+      case BOOLEAN:
+        out.writeByte(BOOLEAN);
+        out.writeBoolean(cast(token, BooleanToken.class).value());
+        break;
+      case PROPERTIES:
+        out.writeByte(PROPERTIES);
+        writeString(cast(token, PropertiesToken.class).value(), out);
+        break;
+      case BYTE_SIZE:
+        ByteSize size = cast(token, ByteSize.class);
+        out.writeByte(BYTE_SIZE);
+        out.writeDouble(size.value());
+        out.writeLong(size.toBytes());
+        out.writeByte(size.getSizeUnit().ordinal());
+        writeString(size.raw(), out);
+        break;
+      case TIME_DURATION:
+        TimeDuration duration = cast(token, TimeDuration.class);
+        out.writeByte(TIME_DURATION);
+        out.writeDouble(duration.value());
+        out.writeLong(duration.toNanos());
+        out.writeByte(duration.getDurationUnit().ordinal());
+        writeString(duration.raw(), out);
+        break;
+      default:
+        throw new IllegalArgumentException("Cannot encode token of type " + token.type());
+    }
+  }
+
+  private static Token read(ByteBuffer in) throws SyntaxError {
+    byte type = in.get();
+    switch (type) {
+      case DIRECTIVE_NAME:
+        return new DirectiveName(readString(in));
+      case COLUMN_NAME:
+        return new ColumnName(readString(in));
+      case STRING:
+        return new TextToken(readString(in));
+      case TEXT:
+        return new Text(readString(in), readString(in));
+      case INTEGER:
+        return new IntegerToken(in.getInt());
+      case FLOAT:
+        return new FloatToken(in.getDouble());
+      case BOOLEAN:
+        return new BooleanToken(in.get() != 0);
+      case PROPERTIES:
+        return new PropertiesToken(readString(in));
+      case BYTE_SIZE:
+        double bytes = in.getDouble();
+        long exactBytes = in.getLong();
+        SizeUnit sizeUnit = SIZE_UNITS[in.get()];
+        return new ByteSize(readString(in), bytes, exactBytes, sizeUnit);
+      case TIME_DURATION:
+        double nanos = in.getDouble();
+        long exactNanos = in.getLong();
+        DurationUnit durationUnit = DURATION_UNITS[in.get()];
+        return new TimeDuration(readString(in), nanos, exactNanos, durationUnit);
+      default:
+        throw new SyntaxError("Invalid compiled recipe: unknown token type " + type);
+    }
+  }
+
+  private static <T extends Token> T cast(Token token, Class<T> type) {
+    if (token.getClass() != type) {
+      throw new IllegalArgumentException("Cannot encode token " + token.getClass().getName()
+                                           + " of type " + token.type());
+    }
+    return type.cast(token);
+  }
+
+  private static void writeString(String value, DataOutputStream out) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer in) throws SyntaxError {
+    int length = count(in);
+    String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+    in.position(in.position() + length);
+    return value;
+  }
+
+  private static int count(ByteBuffer in) throws SyntaxError {
+    int count = in.getInt();
+    // Every count covers at least one byte each, which also rules out huge allocations
+    if (count < 0 || count > in.remaining()) {
+      throw new SyntaxError("Invalid compiled recipe: bad count " + count);
+    }
+    return count;
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api.parser;
+
+/**
+ * This enum <code>SizeUnit</code> represents the units of a {@link ByteSize}, using binary prefixes
+ * (1KB = 1024B). Factors between every pair of units are computed once, so converting a value is a single
+ * multiplication.
+ */
+public enum SizeUnit {
+  /**
+   * Bytes.
+   */
+  B("B", 1L),
+  
+  /**
+   * Kilobytes, 1024 bytes.
+   */
+  KB("KB", 1L << 10),
+  
+  /**
+   * Megabytes, 1024 kilobytes.
+   */
+  MB("MB", 1L << 20),
+  
+  /**
+   * Gigabytes, 1024 megabytes.
+   */
+  GB("GB", 1L << 30),
+  
+  /**
+   * Terabytes, 1024 gigabytes.
+   */
+  TB("TB", 1L << 40),
+  
+  /**
+   * Petabytes, 1024 terabytes.
+   */
+  PB("PB", 1L << 50);
+  
+  // Factor from the unit of the first index to the unit of the second
+  private static final double[][] RATIOS = new double[values().length][values().length];
+  
+  static {
+    for (SizeUnit from : values()) {
+      for (SizeUnit to : values()) {
+        RATIOS[from.ordinal()][to.ordinal()] = (double) from.bytes / to.bytes;
+      }
+    }
+  }
+  
+  private final String symbol;
+  private final long bytes;
+  private final double inverse;
+  
+  SizeUnit(String symbol, long bytes) {
+    this.symbol = symbol;
+    this.bytes = bytes;
+    this.inverse = 1.0 / bytes;
+  }
+  
+  /**
+   * @return the symbol of the unit, such as <code>KB</code>
+   */
+  public String getSymbol() {
+    return symbol;
+  }
+  
+  /**
+   * @return the number of bytes in one unit
+   */
+  public long toBytes() {
+    return bytes;
+  }
+  
+  /**
+   * Converts a number of bytes to this unit.
+   *
+   * @param bytes the value in bytes
+   * @return the value in this unit
+   */
+  public double fromBytes(double bytes) {
+    // The factors are powers of two, so multiplying by the inverse is exact
+    return bytes * inverse;
+  }
+  
+  /**
+   * Converts a value in this unit to another unit.
+   *
+   * @param value the value in this unit
+   * @param target the unit to convert to
+   * @return the value in the target unit
+   */
+  public double convert(double value, SizeUnit target) {
+    return value * RATIOS[ordinal()][target.ordinal()];
+  }
+  
+  /**
+   * Finds a unit by its symbol, ignoring case.
+   *
+   * @param symbol the unit symbol (B, KB, MB, GB, TB, PB)
+   * @return the unit
+   * @throws SyntaxError if the unit is not recognized
+   */
+  public static SizeUnit parse(String symbol) throws SyntaxError {
+    for (SizeUnit unit : values()) {
+      if (unit.symbol.equalsIgnoreCase(symbol)) {
+        return unit;
+      }
+    }
+    throw new SyntaxError(String.format("Unknown byte size unit: %s", symbol));
+  }
+}
@@ -16,130 +16,452 @@
 
 package io.cdap.wrangler.api.parser;
 
+import io.cdap.wrangler.api.BoundedCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class <code>TimeDuration</code> represents a time duration token in the recipe.
- * It supports standard time units (ns, μs, ms, s, m, h, d) with conversion between them.
+ * It supports standard time units (ns, μs, ms, s, m, h, d) with conversion between them, with
+ * <code>us</code> accepted as an ASCII spelling of <code>μs</code>. Besides simple durations such as
+ * <code>10ms</code>, it reads compound durations such as <code>1h30m15s</code>, whose units must go from
+ * largest to smallest, and ISO-8601 durations such as <code>PT1H30M</code> or <code>P1DT12H</code>.
+ * Durations are read by a single-pass scanner, and the value is also kept as an exact whole number of
+ * nanoseconds, see {@link #toNanos()}.
  */
 public class TimeDuration extends Token<Double> {
-  // Regex pattern for parsing time duration values with units
-  private static final Pattern PATTERN = Pattern.compile("^(\\d+(?:\\.\\d+)?)\\s*([nμm]?[smhd])$");
+  // Units from smallest to largest, indexed by the unit index the scanner uses, which is their ordinal
+  private static final DurationUnit[] UNITS = DurationUnit.values();
+  private static final int SECONDS = DurationUnit.S.ordinal();
+  private static final int MINUTES = DurationUnit.M.ordinal();
+  private static final int HOURS = DurationUnit.H.ordinal();
+  private static final int DAYS = DurationUnit.D.ordinal();
+  
+  // Number of distinct texts kept by the cache behind {@link #of(String)}
+  private static final int CACHE_CAPACITY = 4096;
   
-  // Conversion factors to nanoseconds (base unit)
-  private static final long NS_TO_NS = 1L;
-  private static final long US_TO_NS = 1_000L;
-  private static final long MS_TO_NS = 1_000_000L;
-  private static final long S_TO_NS = 1_000_000_000L;
-  private static final long M_TO_NS = 60 * S_TO_NS;
-  private static final long H_TO_NS = 60 * M_TO_NS;
-  private static final long D_TO_NS = 24 * H_TO_NS;
+  // Canonical instances of recently parsed texts
+  private static final BoundedCache<String, TimeDuration> CACHE = new BoundedCache<>(CACHE_CAPACITY);
   
-  // Original string representation
-  private final String originalValue;
+  // Text of a duration created from a number, built on first use; parsed durations keep their text in the token
+  private String formatted;
   
   // Converted value in nanoseconds
   private final double nanoseconds;
   
+  // Converted value in whole nanoseconds, saturated to the range of a long
+  private final long exactNanos;
+  
   // Unit used in the original value
-  private final String unit;
+  private final DurationUnit unit;
   
   /**
    * Constructor for a time duration token.
    *
-   * @param value the time duration expression (e.g., "10ms", "2.5s", "1h")
+   * @param value the time duration expression (e.g., "10ms", "2.5s", "1h30m", "PT1H30M")
    * @throws SyntaxError if the value cannot be parsed as a time duration
    */
   public TimeDuration(String value) throws SyntaxError {
     super(value);
-    this.originalValue = value;
     
-    // Parse the value and unit
-    Matcher matcher = PATTERN.matcher(value.trim());
-    if (!matcher.matches()) {
-      throw new SyntaxError(
-        String.format("Invalid time duration format '%s'. Expected format: <number><unit> (e.g., 10ms, 2.5s)", value));
+    // Parse the value, keeping the exact nanoseconds and the smallest unit used
+    long[] exact = new long[2];
+    this.nanoseconds = scan(value, exact);
+    this.exactNanos = exact[0];
+    this.unit = UNITS[(int) exact[1]];
+  }
+  
+  /**
+   * Parses a time duration straight to a number of nanoseconds, without creating a token or any
+   * intermediate string. The result is the same as <code>new TimeDuration(value).value()</code>.
+   *
+   * @param value the time duration expression (e.g., "10ms", "2.5s", "1h30m", "PT1H30M")
+   * @return the value in nanoseconds
+   * @throws SyntaxError if the value cannot be parsed as a time duration
+   */
+  public static double parseNanos(CharSequence value) throws SyntaxError {
+    return scan(value, null);
+  }
+  
+  /**
+   * Parses a time duration straight to a whole number of nanoseconds, without creating a token. The result
+   * is the same as <code>new TimeDuration(value).toNanos()</code>, so it stays exact where
+   * {@link #parseNanos(CharSequence)} has no double for the value.
+   *
+   * @param value the time duration expression (e.g., "10ms", "2.5s", "1h30m", "PT1H30M")
+   * @return the value in whole nanoseconds, rounded half up and saturated to the range of a long
+   * @throws SyntaxError if the value cannot be parsed as a time duration
+   */
+  public static long parseExactNanos(CharSequence value) throws SyntaxError {
+    long[] exact = new long[2];
+    scan(value, exact);
+    return exact[0];
+  }
+  
+  /**
+   * Parses a time duration from UTF-8 bytes in place, without decoding them into a string. The bytes between the
+   * buffer's position and limit are read; the position is not changed, and direct or memory-mapped buffers
+   * work the same as heap ones.
+   *
+   * @param buffer the buffer holding the time duration expression
+   * @return the value in nanoseconds
+   * @throws SyntaxError if the bytes cannot be parsed as a time duration
+   */
+  public static double parseNanos(ByteBuffer buffer) throws SyntaxError {
+    return parseNanos(new ByteSequence(buffer, buffer.position(), buffer.remaining()));
+  }
+  
+  /**
+   * Parses a time duration from a range of UTF-8 bytes in place, without decoding them into a string.
+   *
+   * @param bytes the array holding the time duration expression
+   * @param offset the index of the first byte
+   * @param length the number of bytes
+   * @return the value in nanoseconds
+   * @throws SyntaxError if the bytes cannot be parsed as a time duration
+   */
+  public static double parseNanos(byte[] bytes, int offset, int length) throws SyntaxError {
+    return parseNanos(new ByteSequence(ByteBuffer.wrap(bytes), offset, length));
+  }
+  
+  /**
+   * Scans a simple, compound or ISO-8601 time duration in one pass.
+   *
+   * @param value the time duration expression
+   * @param exact if not null, receives the exact nanoseconds at index 0 and the index in {@link #UNITS} of
+   *   the last unit at index 1
+   * @return the value in nanoseconds
+   * @throws SyntaxError if the value cannot be parsed as a time duration
+   */
+  private static double scan(CharSequence value, long[] exact) throws SyntaxError {
+    int length = NumberScanner.trimEnd(value);
+    int i = NumberScanner.trimStart(value);
+    if (i < length && (value.charAt(i) == 'P' || value.charAt(i) == 'p')) {
+      return scanIso(value, i + 1, length, exact);
+    }
+    if (i == length) {
+      throw invalid(value);
     }
     
-    // Extract the numeric value and unit
-    double numericValue = Double.parseDouble(matcher.group(1));
-    String unitStr = matcher.group(2);
-    this.unit = unitStr;
+    double nanos = 0.0;
+    long exactNanos = 0L;
+    int previous = UNITS.length;
+    while (i < length) {
+      int end = NumberScanner.scanDecimal(value, i, length);
+      if (end < 0) {
+        throw invalid(value);
+      }
+      int u = end;
+      while (u < length && NumberScanner.isSpace(value.charAt(u))) {
+        u++;
+      }
+      
+      // The unit, where m is minutes unless an s follows
+      int unitIndex = -1;
+      char next = u + 1 < length ? value.charAt(u + 1) : 0;
+      switch (u < length ? value.charAt(u) : 0) {
+        case 'n':
+          unitIndex = next == 's' ? DurationUnit.NS.ordinal() : -1;
+          break;
+        case 'u':
+        case 'μ':
+          unitIndex = next == 's' ? DurationUnit.US.ordinal() : -1;
+          break;
+        case 'm':
+          unitIndex = next == 's' ? DurationUnit.MS.ordinal() : MINUTES;
+          break;
+        case 's':
+          unitIndex = SECONDS;
+          break;
+        case 'h':
+          unitIndex = HOURS;
+          break;
+        case 'd':
+          unitIndex = DAYS;
+          break;
+        default:
+          break;
+      }
+      // Components of a compound duration go from the largest unit to the smallest
+      if (unitIndex < 0 || unitIndex >= previous) {
+        throw invalid(value);
+      }
+      
+      nanos += NumberScanner.decimal(value, i, end) * UNITS[unitIndex].toNanos();
+      if (exact != null) {
+        exactNanos = ExactMath.add(exactNanos, ExactMath.multiply(value, i, end, UNITS[unitIndex].toNanos()));
+      }
+      previous = unitIndex;
+      
+      i = u + (unitIndex < SECONDS ? 2 : 1);
+      while (i < length && NumberScanner.isSpace(value.charAt(i))) {
+        i++;
+      }
+    }
     
-    // Convert to nanoseconds based on the unit
-    this.nanoseconds = convertToNanoseconds(numericValue, unitStr);
+    if (exact != null) {
+      exact[0] = exactNanos;
+      exact[1] = previous;
+    }
+    return nanos;
   }
   
   /**
-   * Convert a value with a unit to nanoseconds.
+   * Scans the part of an ISO-8601 duration after the <code>P</code>: optional days, then after a
+   * <code>T</code> optional hours, minutes and seconds. Years, months and weeks have no fixed length and
+   * are not accepted.
    *
-   * @param value the numeric value
-   * @param unit the unit string (ns, μs, ms, s, m, h, d)
+   * @param value the time duration expression
+   * @param start the index after the <code>P</code>
+   * @param length the index after the last character to scan
+   * @param exact if not null, receives the exact nanoseconds and the last unit, as in {@link #scan}
    * @return the value in nanoseconds
-   * @throws SyntaxError if the unit is not recognized
-   */
-  private double convertToNanoseconds(double value, String unit) throws SyntaxError {
-    switch (unit) {
-      case "ns":
-        return value * NS_TO_NS;
-      case "μs":
-        return value * US_TO_NS;
-      case "ms":
-        return value * MS_TO_NS;
-      case "s":
-        return value * S_TO_NS;
-      case "m":
-        return value * M_TO_NS;
-      case "h":
-        return value * H_TO_NS;
-      case "d":
-        return value * D_TO_NS;
-      default:
-        throw new SyntaxError(String.format("Unknown time duration unit: %s", unit));
+   * @throws SyntaxError if the value is not a valid ISO-8601 duration
+   */
+  private static double scanIso(CharSequence value, int start, int length, long[] exact) throws SyntaxError {
+    double nanos = 0.0;
+    long exactNanos = 0L;
+    int previous = UNITS.length;
+    boolean time = false;
+    int i = start;
+    while (i < length) {
+      char c = value.charAt(i);
+      if (!time && (c == 'T' || c == 't')) {
+        time = true;
+        if (++i == length) {
+          throw invalid(value);
+        }
+        continue;
+      }
+      
+      int end = NumberScanner.scanDecimal(value, i, length);
+      if (end < 0 || end == length) {
+        throw invalid(value);
+      }
+      int unitIndex;
+      switch (Character.toUpperCase(value.charAt(end))) {
+        case 'D':
+          unitIndex = time ? -1 : DAYS;
+          break;
+        case 'H':
+          unitIndex = time ? HOURS : -1;
+          break;
+        case 'M':
+          unitIndex = time ? MINUTES : -1;
+          break;
+        case 'S':
+          unitIndex = time ? SECONDS : -1;
+          break;
+        default:
+          unitIndex = -1;
+          break;
+      }
+      if (unitIndex < 0 || unitIndex >= previous) {
+        throw invalid(value);
+      }
+      
+      nanos += NumberScanner.decimal(value, i, end) * UNITS[unitIndex].toNanos();
+      if (exact != null) {
+        exactNanos = ExactMath.add(exactNanos, ExactMath.multiply(value, i, end, UNITS[unitIndex].toNanos()));
+      }
+      previous = unitIndex;
+      i = end + 1;
     }
+    
+    // P alone, or a T with nothing after it, is not a duration
+    if (previous == UNITS.length) {
+      throw invalid(value);
+    }
+    if (exact != null) {
+      exact[0] = exactNanos;
+      exact[1] = previous;
+    }
+    return nanos;
+  }
+  
+  private static SyntaxError invalid(CharSequence value) {
+    return new SyntaxError(
+      String.format("Invalid time duration format '%s'. Expected format: <number><unit> " +
+                      "(e.g., 10ms, 2.5s, 1h30m, PT1H30M)", value));
+  }
+  
+  /**
+   * Gets the time duration of a text, reusing the instance created for the same text when it is still cached.
+   * Columns with few distinct values then parse each value once and share one instance per value. The
+   * cache is bounded and drops the least recently used texts.
+   *
+   * @param value the time duration expression (e.g., "100ms")
+   * @return the time duration
+   * @throws SyntaxError if the value cannot be parsed as a time duration
+   */
+  public static TimeDuration of(String value) throws SyntaxError {
+    return CACHE.get(value, TimeDuration::new);
+  }
+  
+  /**
+   * @return the number of {@link #of(String)} calls that found their text in the cache
+   */
+  public static long getCacheHits() {
+    return CACHE.hitCount();
+  }
+  
+  /**
+   * @return the number of {@link #of(String)} calls that had to parse their text
+   */
+  public static long getCacheMisses() {
+    return CACHE.missCount();
+  }
+  
+  /**
+   * Constructor for a time duration from a raw nanosecond value, without any text to parse.
+   *
+   * @param nanoseconds the nanosecond value
+   * @param exactNanos the nanosecond value in whole nanoseconds
+   */
+  private TimeDuration(double nanoseconds, long exactNanos) {
+    super(null);
+    this.nanoseconds = nanoseconds;
+    this.exactNanos = exactNanos;
+    this.unit = DurationUnit.NS;
+  }
+  
+  /**
+   * Constructor for a time duration restored from its parts by {@link RecipeCodec}, without any text to parse.
+   *
+   * @param original the original string value
+   * @param nanoseconds the value in nanoseconds
+   * @param exactNanos the value in whole nanoseconds
+   * @param unit the unit used in the original value
+   */
+  TimeDuration(String original, double nanoseconds, long exactNanos, DurationUnit unit) {
+    super(original);
+    this.nanoseconds = nanoseconds;
+    this.exactNanos = exactNanos;
+    this.unit = unit;
+  }
+  
+  /**
+   * Creates a time duration from a whole number of nanoseconds. No text is built or parsed.
+   *
+   * @param nanos the duration in nanoseconds
+   * @return the time duration
+   */
+  public static TimeDuration ofNanos(long nanos) {
+    return new TimeDuration((double) nanos, nanos);
+  }
+  
+  /**
+   * Creates a time duration from a number of nanoseconds, which may have a fraction. No text is built or
+   * parsed.
+   *
+   * @param nanos the duration in nanoseconds
+   * @return the time duration, whose exact value is rounded to the nearest nanosecond
+   */
+  public static TimeDuration ofNanos(double nanos) {
+    return new TimeDuration(nanos, Math.round(nanos));
+  }
+  
+  /**
+   * Writes a number of nanoseconds in its best unit, with at most two decimals, so 90 seconds are written as
+   * <code>1.5m</code>. The best unit is the largest one in which the value is at least one. Nothing is
+   * allocated.
+   *
+   * @param nanos the value in nanoseconds
+   * @param out where to write
+   */
+  public static void formatNanos(double nanos, StringBuilder out) {
+    ReadableFormat.DURATIONS.format(nanos, out);
+  }
+  
+  /**
+   * Writes a number of nanoseconds in its best unit, as {@link #formatNanos(double, StringBuilder)} does.
+   *
+   * @param nanos the value in nanoseconds
+   * @param out where to write
+   * @throws IOException if writing fails
+   */
+  public static void formatNanos(double nanos, Appendable out) throws IOException {
+    ReadableFormat.DURATIONS.format(nanos, out);
+  }
+  
+  /**
+   * Writes this time duration in its best unit, whatever unit it was written in, as
+   * {@link #formatNanos(double, StringBuilder)} does.
+   *
+   * @param out where to write
+   */
+  public void formatTo(StringBuilder out) {
+    formatNanos(nanoseconds, out);
+  }
+  
+  /**
+   * Writes this time duration in its best unit, whatever unit it was written in, as
+   * {@link #formatNanos(double, StringBuilder)} does.
+   *
+   * @param out where to write
+   * @throws IOException if writing fails
+   */
+  public void formatTo(Appendable out) throws IOException {
+    formatNanos(nanoseconds, out);
   }
   
   /**
    * Convert the time duration to a specified unit.
    *
-   * @param targetUnit the target unit (ns, μs, ms, s, m, h, d)
+   * @param targetUnit the target unit (ns, μs or us, ms, s, m, h, d)
    * @return the value in the target unit
    * @throws SyntaxError if the target unit is not recognized
    */
   public double convertTo(String targetUnit) throws SyntaxError {
-    switch (targetUnit) {
-      case "ns":
-        return nanoseconds;
-      case "μs":
-        return nanoseconds / US_TO_NS;
-      case "ms":
-        return nanoseconds / MS_TO_NS;
-      case "s":
-        return nanoseconds / S_TO_NS;
-      case "m":
-        return nanoseconds / M_TO_NS;
-      case "h":
-        return nanoseconds / H_TO_NS;
-      case "d":
-        return nanoseconds / D_TO_NS;
-      default:
-        throw new SyntaxError(String.format("Unknown time duration unit: %s", targetUnit));
-    }
+    return convertTo(DurationUnit.parse(targetUnit));
+  }
+  
+  /**
+   * Convert the time duration to a specified unit.
+   *
+   * @param targetUnit the target unit
+   * @return the value in the target unit
+   */
+  public double convertTo(DurationUnit targetUnit) {
+    return targetUnit.fromNanos(nanoseconds);
   }
   
   /**
    * @return the original string value
    */
   public String getOriginalValue() {
-    return originalValue;
+    String original = super.raw();
+    if (original == null) {
+      original = formatted;
+    }
+    if (original == null) {
+      original = ExactMath.toPlainString(nanoseconds) + unit.getSymbol();
+      formatted = original;
+    }
+    return original;
+  }
+  
+  /**
+   * @return the original string value
+   */
+  @Override
+  public String raw() {
+    return getOriginalValue();
   }
   
   /**
    * @return the unit used in the original value
    */
   public String getUnit() {
+    return unit.getSymbol();
+  }
+  
+  /**
+   * @return the smallest unit used in the original value
+   */
+  public DurationUnit getDurationUnit() {
     return unit;
   }
   
@@ -151,6 +473,16 @@ public class TimeDuration extends Token<Double> {
     return nanoseconds;
   }
   
+  /**
+   * Gets the duration as an exact whole number of nanoseconds. Fractions of a nanosecond are rounded half
+   * up, and durations beyond the range of a long, about 292 years, saturate at {@link Long#MAX_VALUE}.
+   *
+   * @return the value in whole nanoseconds
+   */
+  public long toNanos() {
+    return exactNanos;
+  }
+  
   /**
    * @return token type TIME_DURATION
    */
@@ -178,6 +510,6 @@ public class TimeDuration extends Token<Double> {
   
   @Override
   public String toString() {
-    return originalValue;
+    return getOriginalValue();
   }
 }
\ No newline at end of file
@@ -17,24 +17,60 @@
 package io.cdap.wrangler.api.parser;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 /**
  * This class <code>TokenGroup</code> represents a group of tokens.
+ * A group is built up with {@link #add(Token)}; {@link #toImmutable()} gives a copy that can no longer
+ * change, so it can be shared between threads.
  */
 public class TokenGroup implements Iterable<Token> {
-  private final List<Token> tokens = new ArrayList<>();
+  private final List<Token> tokens;
+  private final boolean immutable;
+
+  /**
+   * Constructor for an empty group.
+   */
+  public TokenGroup() {
+    this(new ArrayList<>(), false);
+  }
+
+  private TokenGroup(List<Token> tokens, boolean immutable) {
+    this.tokens = tokens;
+    this.immutable = immutable;
+  }
 
   /**
    * Adds a token to the group.
    *
    * @param token the token to add
+   * @throws UnsupportedOperationException if the group is immutable
    */
   public void add(Token token) {
     tokens.add(token);
   }
 
+  /**
+   * Gets an immutable copy of the group, or the group itself if it already is immutable.
+   *
+   * @return the immutable group
+   */
+  public TokenGroup toImmutable() {
+    if (immutable) {
+      return this;
+    }
+    return new TokenGroup(Collections.unmodifiableList(new ArrayList<>(tokens)), true);
+  }
+
+  /**
+   * @return true if tokens can no longer be added to the group
+   */
+  public boolean isImmutable() {
+    return immutable;
+  }
+
   /**
    * Gets a token at the specified index.
    *
@@ -65,7 +101,7 @@ public class TokenGroup implements Iterable<Token> {
   }
 
   /**
-   * @return an iterator over the tokens
+   * @return an iterator over the tokens, which cannot remove tokens from an immutable group
    */
   @Override
   public Iterator<Token> iterator() {
@@ -16,27 +16,116 @@
 
 package io.cdap.wrangler.api.parser;
 
+import io.cdap.wrangler.api.DirectiveParseException;
 import io.cdap.wrangler.api.Optional;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * This class <code>UsageDefinition</code> represents the usage definition of a directive.
+ * Arguments are kept in the order they were defined, which is the order they appear in a directive.
+ * {@link #bind(TokenGroup)} maps the tokens of a parsed directive onto the arguments without changing the
+ * definition, so one definition can bind any number of directives, on any number of threads.
  */
 public class UsageDefinition {
   private final String name;
   private final Map<String, Argument> arguments;
+  private final Argument[] order;
+  private final Map<String, Integer> indexes;
 
   /**
    * Constructor for a usage definition.
    *
    * @param name the directive name
-   * @param arguments the arguments
+   * @param arguments the arguments, in definition order
    */
   private UsageDefinition(String name, Map<String, Argument> arguments) {
     this.name = name;
-    this.arguments = arguments;
+    this.arguments = Collections.unmodifiableMap(new LinkedHashMap<>(arguments));
+    this.order = arguments.values().toArray(new Argument[0]);
+    Map<String, Integer> indexes = new HashMap<>();
+    for (int i = 0; i < order.length; i++) {
+      indexes.put(order[i].getName(), i);
+    }
+    this.indexes = Collections.unmodifiableMap(indexes);
+  }
+
+  /**
+   * Binds the tokens of a parsed directive to the arguments, in definition order. An optional argument
+   * whose type does not match the next token is skipped, and a string is accepted for a text argument.
+   * The definition itself is not changed.
+   *
+   * @param tokens the tokens, which may start with the directive name
+   * @return the immutable bound arguments
+   * @throws DirectiveParseException if the directive name differs, a required argument is missing or has
+   *   the wrong type, or tokens are left over
+   */
+  public Arguments bind(TokenGroup tokens) throws DirectiveParseException {
+    int next = 0;
+    if (!tokens.isEmpty() && tokens.get(0).type() == TokenType.DIRECTIVE_NAME) {
+      if (!name.equals(tokens.get(0).value())) {
+        throw new DirectiveParseException(
+          String.format("Expected directive '%s', found '%s'", name, tokens.get(0).value()));
+      }
+      next = 1;
+    }
+    
+    Token[] values = new Token[order.length];
+    for (int i = 0; i < order.length; i++) {
+      Argument argument = order[i];
+      Token value = next < tokens.size() ? argument.accept(tokens.get(next)) : null;
+      if (value != null) {
+        values[i] = value;
+        next++;
+      } else if (argument.getOptional() == Optional.FALSE) {
+        if (next < tokens.size()) {
+          throw new DirectiveParseException(
+            String.format("Argument '%s' of directive '%s' expects %s, found %s '%s'", argument.getName(), name,
+                          argument.getType(), tokens.get(next).type(), tokens.get(next).raw()));
+        }
+        throw new DirectiveParseException(
+          String.format("Missing required argument '%s' of directive '%s'", argument.getName(), name));
+      }
+    }
+    if (next < tokens.size()) {
+      throw new DirectiveParseException(
+        String.format("Unexpected argument '%s' for directive '%s'", tokens.get(next).raw(), name));
+    }
+    return new Arguments(this, values);
+  }
+
+  /**
+   * Gets the values set on the arguments with {@link Argument#setValue(Token)}, as immutable arguments.
+   *
+   * @return a snapshot of the argument values
+   */
+  public Arguments getValues() {
+    Token[] values = new Token[order.length];
+    for (int i = 0; i < order.length; i++) {
+      values[i] = order[i].value();
+    }
+    return new Arguments(this, values);
+  }
+
+  /**
+   * Gets the position of an argument.
+   *
+   * @param name the argument name
+   * @return the index of the argument in definition order, or -1 if there is no such argument
+   */
+  public int indexOf(String name) {
+    Integer index = indexes.get(name);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * @return the number of arguments
+   */
+  public int size() {
+    return order.length;
   }
 
   /**
@@ -64,7 +153,7 @@ public class UsageDefinition {
   /**
    * Gets the arguments.
    *
-   * @return the arguments
+   * @return an unmodifiable map of the arguments, in definition order
    */
   public Map<String, Argument> getArguments() {
     return arguments;
@@ -94,7 +183,7 @@ public class UsageDefinition {
      */
     public Builder(String name) {
       this.name = name;
-      this.arguments = new HashMap<>();
+      this.arguments = new LinkedHashMap<>();
     }
 
     /**
@@ -191,12 +280,30 @@ public class UsageDefinition {
     }
 
     /**
-     * Sets the value of the argument.
+     * Sets the value of the argument. Values set this way are shared by every user of the definition, so
+     * directives that may run on several threads should be built from {@link UsageDefinition#bind(TokenGroup)}
+     * instead.
      *
      * @param value the argument value
      */
     public void setValue(Token value) {
       this.value = value;
     }
+
+    /**
+     * Checks a token against the type of the argument.
+     *
+     * @param token the token
+     * @return the token, a string turned into text for a text argument, or null if the token does not fit
+     */
+    Token accept(Token token) {
+      if (token.type() == type) {
+        return token;
+      }
+      if (type == TokenType.TEXT && token.type() == TokenType.STRING) {
+        return new Text((String) token.value(), token.raw());
+      }
+      return null;
+    }
   }
 }
\ No newline at end of file
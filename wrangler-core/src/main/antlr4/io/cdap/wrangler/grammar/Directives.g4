@@ -17,19 +17,86 @@
 grammar Directives;
 
 @header {
+import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.DirectiveName;
+import io.cdap.wrangler.api.parser.TokenGroup;
+import io.cdap.wrangler.parser.DirectiveTokens;
+
+import java.util.List;
 }
 
-@members {
+@lexer::members {
+  // Whether newlines are separators, as between the directives of a recipe, rather than whitespace
+  private boolean recipe;
+
+  /**
+   * @param recipe whether newlines are lexed as separators rather than skipped as whitespace
+   */
+  public void setRecipe(boolean recipe) {
+    this.recipe = recipe;
+  }
+}
+
+@parser::members {
+  // Group the actions add tokens to as they are matched, or null when tokens are taken from the parse tree
+  private TokenGroup emitted;
+
+  // Groups of the directives of a recipe, one added as each directive starts, or null outside a recipe
+  private List<TokenGroup> directives;
+
+  /**
+   * Makes the actions add a token to a group for every directive name and argument matched, so the tokens
+   * are available without building or walking a parse tree.
+   *
+   * @param tokens the group to add to, or null to stop emitting
+   */
+  public void emitTo(TokenGroup tokens) {
+    this.emitted = tokens;
+  }
+
+  /**
+   * Makes the actions start a new group, added to a list, at every directive of a recipe.
+   *
+   * @param directives the list to add to, or null to stop emitting
+   */
+  public void emitRecipeTo(List<TokenGroup> directives) {
+    this.directives = directives;
+  }
+
+  private void begin() {
+    if (directives != null) {
+      emitted = new TokenGroup();
+      directives.add(emitted);
+    }
+  }
+
+  private void emit(io.cdap.wrangler.api.parser.Token token) {
+    if (emitted != null) {
+      emitted.add(token);
+    }
+  }
 }
 
-// Root rule for a directive
+// Root rule for a directive. Every rule that matches a directive name or an argument emits its token as
+// it is matched, see emitTo, so tokens can be collected without building a parse tree
 parse
   : directive EOF
   ;
 
+// Root rule for a recipe: directives separated by newlines or semicolons, where empty ones are ignored.
+// Newlines are only separators when the lexer is told it reads a recipe
+recipe
+  : directive? (separator directive?)* EOF
+  ;
+
+separator
+  : NEWLINE
+  | SEMICOLON
+  ;
+
 // A directive is a name followed by zero or more arguments
 directive
-  : IDENTIFIER arguments?
+  : IDENTIFIER { begin(); emit(new DirectiveName($IDENTIFIER.text)); } arguments?
   ;
 
 // Arguments for a directive
@@ -37,12 +104,14 @@ arguments
   : argument+
   ;
 
-// An argument can be a column reference, a string, a number, a property map, a byte size, or a time duration
+// An argument can be a column reference, a string or bare word, a number, a property map, a byte size,
+// or a time duration
 argument
   : column_name       #ColumnNameArg
   | string            #StringArg
+  | identifier        #IdentifierArg
   | number            #NumberArg
-  | boolean           #BooleanArg
+  | boolean_literal   #BooleanArg
   | property          #PropertyArg
   | byte_size         #ByteSizeArg
   | time_duration     #TimeDurationArg
@@ -50,42 +119,53 @@ argument
 
 // Column name with leading colon
 column_name
-  : COLON IDENTIFIER
+  : COLON name=(IDENTIFIER | BOOLEAN) { emit(new ColumnName($name.text)); }
   ;
 
 // String literal with quotes
 string
-  : STRING
+  : STRING { emit(DirectiveTokens.string($STRING.text)); }
+  ;
+
+// Bare word, taken as a string
+identifier
+  : IDENTIFIER { emit(DirectiveTokens.identifier($IDENTIFIER.text)); }
   ;
 
 // Numeric literal
 number
-  : DECIMAL #IntegerLiteral
-  | FLOAT   #FloatingPointLiteral
+  : DECIMAL { emit(DirectiveTokens.integer($DECIMAL.text)); } #IntegerLiteral
+  | FLOAT { emit(DirectiveTokens.floating($FLOAT.text)); }     #FloatingPointLiteral
   ;
 
 // Boolean literal
-boolean
-  : BOOLEAN
+boolean_literal
+  : BOOLEAN { emit(DirectiveTokens.bool($BOOLEAN.text)); }
   ;
 
 // Property map enclosed in {}
 property
-  : PROPERTY
+  : PROPERTY { emit(DirectiveTokens.property($PROPERTY.text)); }
   ;
 
 // Byte size value with unit
 byte_size
-  : BYTE_SIZE
+  : BYTE_SIZE { emit(DirectiveTokens.byteSize($BYTE_SIZE.text)); }
   ;
 
 // Time duration value with unit
 time_duration
-  : TIME_DURATION
+  : TIME_DURATION { emit(DirectiveTokens.timeDuration($TIME_DURATION.text)); }
   ;
 
 // Lexer rules
 
+// Boolean literals, ahead of IDENTIFIER so that true and false are not lexed as bare words
+BOOLEAN
+  : 'true'
+  | 'false'
+  ;
+
 // Identifiers for directives and column names
 IDENTIFIER
   : [a-zA-Z_][a-zA-Z0-9_-]*
@@ -114,12 +194,6 @@ fragment EXPONENT
   : [eE] [+-]? [0-9]+
   ;
 
-// Boolean literals
-BOOLEAN
-  : 'true'
-  | 'false'
-  ;
-
 // Property map with key-value pairs
 PROPERTY
   : '{' (~[{}] | PROPERTY)* '}'
@@ -130,9 +204,14 @@ COLON
   : ':'
   ;
 
+// Separator between the directives of a recipe
+SEMICOLON
+  : ';'
+  ;
+
 // Byte size pattern matching (e.g., 5KB, 2.5MB, 1GB)
 BYTE_SIZE
-  : [0-9]+ ('.' [0-9]+)? WS? SIZE_UNIT
+  : [0-9]+ ('.' [0-9]+)? SPACE? SIZE_UNIT
   ;
 
 // Size units
@@ -142,7 +221,7 @@ fragment SIZE_UNIT
 
 // Time duration pattern matching (e.g., 500ms, 1.5s, 2h)
 TIME_DURATION
-  : [0-9]+ ('.' [0-9]+)? WS? TIME_UNIT
+  : [0-9]+ ('.' [0-9]+)? SPACE? TIME_UNIT
   ;
 
 // Time units
@@ -156,9 +235,25 @@ fragment TIME_UNIT
   | 'd'   // days
   ;
 
+// Newlines separating the directives of a recipe; defined before LINE_BREAK so that it wins when enabled
+NEWLINE
+  : {recipe}? [\r\n]+
+  ;
+
+// Newlines anywhere else
+LINE_BREAK
+  : [\r\n]+ -> skip
+  ;
+
 // Whitespace
 WS
-  : [ \t\r\n]+ -> skip
+  : [ \t]+ -> skip
+  ;
+
+// Whitespace between a number and its unit, which never spans lines, so a number at the end of a line
+// does not take the first letter of the next directive as its unit
+fragment SPACE
+  : [ \t]+
   ;
 
 // Line comment
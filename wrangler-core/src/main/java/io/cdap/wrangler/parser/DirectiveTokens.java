@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.parser.BooleanToken;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.FloatToken;
+import io.cdap.wrangler.api.parser.IntegerToken;
+import io.cdap.wrangler.api.parser.PropertiesToken;
+import io.cdap.wrangler.api.parser.SyntaxError;
+import io.cdap.wrangler.api.parser.TextToken;
+import io.cdap.wrangler.api.parser.TimeDuration;
+
+/**
+ * This class <code>DirectiveTokens</code> turns the text of lexer tokens into recipe tokens. It is shared by
+ * {@link DirectivesListener}, which walks a parse tree, and by the actions of the grammar, which emit tokens
+ * while parsing, so both ways of parsing give the same tokens.
+ */
+public final class DirectiveTokens {
+  private DirectiveTokens() {
+  }
+
+  /**
+   * @param text the text of a <code>STRING</code> token, with its quotes
+   * @return the token of the unquoted, unescaped text
+   */
+  public static TextToken string(String text) {
+    // Remove surrounding quotes
+    String value = text.substring(1, text.length() - 1);
+    
+    // Replace escaped quotes
+    value = value.replace("\\\"", "\"").replace("\\'", "'");
+    return new TextToken(value);
+  }
+
+  /**
+   * @param text the text of an <code>IDENTIFIER</code> token given as an argument
+   * @return the string token of the word
+   * @throws IllegalArgumentException if the word is a multi-letter unit followed by a number, such as
+   *   <code>KB5</code>, which is taken for a misplaced unit rather than a word
+   */
+  public static TextToken identifier(String text) {
+    if (isUnitFirst(text)) {
+      throw new IllegalArgumentException(
+        String.format("'%s' has its unit before its number; quote it to use it as a word", text));
+    }
+    return new TextToken(text);
+  }
+
+  /**
+   * Checks if a word is a multi-letter unit followed only by digits, such as <code>KB5</code> or
+   * <code>ms10</code>. Single-letter units are left out, so words like <code>s3</code> or <code>h2</code>
+   * stay words.
+   *
+   * @param text the word
+   * @return true if the word starts with a unit of two letters and continues with digits only
+   */
+  static boolean isUnitFirst(String text) {
+    if (text.length() < 3) {
+      return false;
+    }
+    char first = text.charAt(0);
+    char second = text.charAt(1);
+    boolean unit = "KkMmGgTtPp".indexOf(first) >= 0 && (second == 'B' || second == 'b')
+      || "nmuμ".indexOf(first) >= 0 && second == 's';
+    if (!unit) {
+      return false;
+    }
+    for (int i = 2; i < text.length(); i++) {
+      if (!Character.isDigit(text.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param text the text of a <code>BOOLEAN</code> token
+   * @return the boolean token
+   */
+  public static BooleanToken bool(String text) {
+    return new BooleanToken(Boolean.parseBoolean(text));
+  }
+
+  /**
+   * @param text the text of a <code>PROPERTY</code> token
+   * @return the properties token
+   */
+  public static PropertiesToken property(String text) {
+    return new PropertiesToken(text);
+  }
+
+  /**
+   * @param text the text of a <code>DECIMAL</code> token
+   * @return the integer token
+   */
+  public static IntegerToken integer(String text) {
+    return new IntegerToken(Integer.parseInt(text));
+  }
+
+  /**
+   * @param text the text of a <code>FLOAT</code> token
+   * @return the float token
+   */
+  public static FloatToken floating(String text) {
+    return new FloatToken(Double.parseDouble(text));
+  }
+
+  /**
+   * @param text the text of a <code>BYTE_SIZE</code> token
+   * @return the byte size, shared with other uses of the same text
+   */
+  public static ByteSize byteSize(String text) {
+    try {
+      return ByteSize.of(text);
+    } catch (SyntaxError e) {
+      // This should not happen if the grammar is correct
+      throw new RuntimeException("Failed to parse byte size: " + text, e);
+    }
+  }
+
+  /**
+   * @param text the text of a <code>TIME_DURATION</code> token
+   * @return the time duration, shared with other uses of the same text
+   */
+  public static TimeDuration timeDuration(String text) {
+    try {
+      return TimeDuration.of(text);
+    } catch (SyntaxError e) {
+      // This should not happen if the grammar is correct
+      throw new RuntimeException("Failed to parse time duration: " + text, e);
+    }
+  }
+}
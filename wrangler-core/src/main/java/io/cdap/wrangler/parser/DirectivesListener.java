@@ -16,18 +16,10 @@
 
 package io.cdap.wrangler.parser;
 
-import io.cdap.wrangler.api.parser.BooleanToken;
-import io.cdap.wrangler.api.parser.ByteSize;
 import io.cdap.wrangler.api.parser.ColumnName;
 import io.cdap.wrangler.api.parser.DirectiveName;
-import io.cdap.wrangler.api.parser.FloatToken;
-import io.cdap.wrangler.api.parser.IntegerToken;
-import io.cdap.wrangler.api.parser.PropertiesToken;
-import io.cdap.wrangler.api.parser.SyntaxError;
-import io.cdap.wrangler.api.parser.TextToken;
-import io.cdap.wrangler.api.parser.TimeDuration;
-import io.cdap.wrangler.api.parser.Token;
 import io.cdap.wrangler.api.parser.TokenGroup;
+import io.cdap.wrangler.grammar.DirectivesBaseListener;
 import io.cdap.wrangler.grammar.DirectivesParser;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
@@ -35,7 +27,7 @@ import org.antlr.v4.runtime.tree.ParseTreeWalker;
 /**
  * This class <code>DirectivesListener</code> listens to parse events from ANTLR and builds tokens.
  */
-public class DirectivesListener extends org.antlr.v4.runtime.tree.ParseTreeListener {
+public class DirectivesListener extends DirectivesBaseListener {
   private final TokenGroup tokens;
 
   /**
@@ -80,7 +72,7 @@ public class DirectivesListener extends org.antlr.v4.runtime.tree.ParseTreeListe
    * @param ctx the parse tree
    */
   public void enterColumnNameArg(DirectivesParser.ColumnNameArgContext ctx) {
-    String columnName = ctx.column_name().IDENTIFIER().getText();
+    String columnName = ctx.column_name().name.getText();
     tokens.add(new ColumnName(columnName));
   }
 
@@ -90,15 +82,16 @@ public class DirectivesListener extends org.antlr.v4.runtime.tree.ParseTreeListe
    * @param ctx the parse tree
    */
   public void enterStringArg(DirectivesParser.StringArgContext ctx) {
-    String text = ctx.string().STRING().getText();
-    
-    // Remove surrounding quotes
-    text = text.substring(1, text.length() - 1);
-    
-    // Replace escaped quotes
-    text = text.replace("\\\"", "\"").replace("\\'", "'");
-    
-    tokens.add(new TextToken(text));
+    tokens.add(DirectiveTokens.string(ctx.string().STRING().getText()));
+  }
+
+  /**
+   * Enter a parse tree produced by the {@code IdentifierArg} labeled alternative in {@link DirectivesParser#argument}.
+   *
+   * @param ctx the parse tree
+   */
+  public void enterIdentifierArg(DirectivesParser.IdentifierArgContext ctx) {
+    tokens.add(DirectiveTokens.identifier(ctx.identifier().IDENTIFIER().getText()));
   }
 
   /**
@@ -107,9 +100,7 @@ public class DirectivesListener extends org.antlr.v4.runtime.tree.ParseTreeListe
    * @param ctx the parse tree
    */
   public void enterBooleanArg(DirectivesParser.BooleanArgContext ctx) {
-    String text = ctx.boolean_().BOOLEAN().getText();
-    boolean value = Boolean.parseBoolean(text);
-    tokens.add(new BooleanToken(value));
+    tokens.add(DirectiveTokens.bool(ctx.boolean_literal().BOOLEAN().getText()));
   }
 
   /**
@@ -118,8 +109,7 @@ public class DirectivesListener extends org.antlr.v4.runtime.tree.ParseTreeListe
    * @param ctx the parse tree
    */
   public void enterPropertyArg(DirectivesParser.PropertyArgContext ctx) {
-    String text = ctx.property().PROPERTY().getText();
-    tokens.add(new PropertiesToken(text));
+    tokens.add(DirectiveTokens.property(ctx.property().PROPERTY().getText()));
   }
 
   /**
@@ -128,9 +118,7 @@ public class DirectivesListener extends org.antlr.v4.runtime.tree.ParseTreeListe
    * @param ctx the parse tree
    */
   public void enterIntegerLiteral(DirectivesParser.IntegerLiteralContext ctx) {
-    String text = ctx.DECIMAL().getText();
-    int value = Integer.parseInt(text);
-    tokens.add(new IntegerToken(value));
+    tokens.add(DirectiveTokens.integer(ctx.DECIMAL().getText()));
   }
 
   /**
@@ -139,9 +127,7 @@ public class DirectivesListener extends org.antlr.v4.runtime.tree.ParseTreeListe
    * @param ctx the parse tree
    */
   public void enterFloatingPointLiteral(DirectivesParser.FloatingPointLiteralContext ctx) {
-    String text = ctx.FLOAT().getText();
-    double value = Double.parseDouble(text);
-    tokens.add(new FloatToken(value));
+    tokens.add(DirectiveTokens.floating(ctx.FLOAT().getText()));
   }
 
   /**
@@ -150,13 +136,7 @@ public class DirectivesListener extends org.antlr.v4.runtime.tree.ParseTreeListe
    * @param ctx the parse tree
    */
   public void enterByteSizeArg(DirectivesParser.ByteSizeArgContext ctx) {
-    String text = ctx.byte_size().BYTE_SIZE().getText();
-    try {
-      tokens.add(new ByteSize(text));
-    } catch (SyntaxError e) {
-      // This should not happen if the grammar is correct
-      throw new RuntimeException("Failed to parse byte size: " + text, e);
-    }
+    tokens.add(DirectiveTokens.byteSize(ctx.byte_size().BYTE_SIZE().getText()));
   }
 
   /**
@@ -165,13 +145,7 @@ public class DirectivesListener extends org.antlr.v4.runtime.tree.ParseTreeListe
    * @param ctx the parse tree
    */
   public void enterTimeDurationArg(DirectivesParser.TimeDurationArgContext ctx) {
-    String text = ctx.time_duration().TIME_DURATION().getText();
-    try {
-      tokens.add(new TimeDuration(text));
-    } catch (SyntaxError e) {
-      // This should not happen if the grammar is correct
-      throw new RuntimeException("Failed to parse time duration: " + text, e);
-    }
+    tokens.add(DirectiveTokens.timeDuration(ctx.time_duration().TIME_DURATION().getText()));
   }
 
   // ANTLR interface methods that we don't need to implement
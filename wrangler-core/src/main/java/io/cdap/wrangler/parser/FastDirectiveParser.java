@@ -0,0 +1,422 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.DirectiveName;
+import io.cdap.wrangler.api.parser.TokenGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class <code>FastDirectiveParser</code> parses directives in a single pass over the text, without the
+ * ANTLR runtime. It splits the text into tokens exactly as the lexer of <code>Directives.g4</code> does,
+ * taking the longest match and breaking ties in rule order, and builds the same tokens as the grammar
+ * actions through {@link DirectiveTokens}. It only accepts input it is sure about: anything else, valid or
+ * not, makes it give up and return null, so the caller can fall back to the grammar, which then parses the
+ * input or reports the error.
+ */
+final class FastDirectiveParser {
+  private static final int EOF = 0;
+  private static final int IDENTIFIER = 1;
+  private static final int STRING = 2;
+  private static final int DECIMAL = 3;
+  private static final int FLOAT = 4;
+  private static final int PROPERTY = 5;
+  private static final int COLON = 6;
+  private static final int SEMICOLON = 7;
+  private static final int BYTE_SIZE = 8;
+  private static final int TIME_DURATION = 9;
+  private static final int NEWLINE = 10;
+  private static final int BOOLEAN = 11;
+  private static final int UNKNOWN = 12;
+
+  private final String text;
+  private final boolean recipe;
+  private final int length;
+  private int pos;
+  // Range of the last token read
+  private int start;
+  private int end;
+
+  private FastDirectiveParser(String text, boolean recipe) {
+    this.text = text;
+    this.recipe = recipe;
+    this.length = text.length();
+  }
+
+  /**
+   * Parses a single directive, as the <code>parse</code> rule does.
+   *
+   * @param directive the directive string
+   * @return the tokens, or null if the fast path cannot parse the directive
+   */
+  static TokenGroup parse(String directive) {
+    if (directive == null) {
+      return null;
+    }
+    try {
+      FastDirectiveParser parser = new FastDirectiveParser(directive, false);
+      TokenGroup tokens = new TokenGroup();
+      return parser.directive(parser.next(), tokens) == EOF ? tokens : null;
+    } catch (RuntimeException e) {
+      // A token the fast path could not convert, such as an integer out of range; the grammar reports it
+      return null;
+    }
+  }
+
+  /**
+   * Parses a recipe of directives separated by newlines or semicolons, as the <code>recipe</code> rule does.
+   *
+   * @param recipe the recipe
+   * @return the tokens of each directive, or null if the fast path cannot parse the recipe
+   */
+  static List<TokenGroup> parseRecipe(String recipe) {
+    if (recipe == null) {
+      return null;
+    }
+    try {
+      FastDirectiveParser parser = new FastDirectiveParser(recipe, true);
+      List<TokenGroup> directives = new ArrayList<>();
+      int token = parser.next();
+      while (token != EOF) {
+        if (token == NEWLINE || token == SEMICOLON) {
+          token = parser.next();
+          continue;
+        }
+        TokenGroup tokens = new TokenGroup();
+        token = parser.directive(token, tokens);
+        if (token != EOF && token != NEWLINE && token != SEMICOLON) {
+          return null;
+        }
+        directives.add(tokens);
+      }
+      return directives;
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Parses a directive name and its arguments.
+   *
+   * @param token the first token of the directive
+   * @param tokens the group to add the tokens to
+   * @return the token after the directive, or {@link #UNKNOWN} if the directive cannot be parsed
+   */
+  private int directive(int token, TokenGroup tokens) {
+    if (token != IDENTIFIER) {
+      return UNKNOWN;
+    }
+    tokens.add(new DirectiveName(text()));
+    
+    while (true) {
+      token = next();
+      switch (token) {
+        case COLON:
+          int name = next();
+          if (name != IDENTIFIER && name != BOOLEAN) {
+            return UNKNOWN;
+          }
+          tokens.add(new ColumnName(text()));
+          break;
+        case STRING:
+          tokens.add(DirectiveTokens.string(text()));
+          break;
+        case IDENTIFIER:
+          String word = text();
+          if (DirectiveTokens.isUnitFirst(word)) {
+            // A misplaced unit, which the grammar reports
+            return UNKNOWN;
+          }
+          tokens.add(DirectiveTokens.identifier(word));
+          break;
+        case BOOLEAN:
+          tokens.add(DirectiveTokens.bool(text()));
+          break;
+        case DECIMAL:
+          tokens.add(DirectiveTokens.integer(text()));
+          break;
+        case FLOAT:
+          tokens.add(DirectiveTokens.floating(text()));
+          break;
+        case PROPERTY:
+          tokens.add(DirectiveTokens.property(text()));
+          break;
+        case BYTE_SIZE:
+          tokens.add(DirectiveTokens.byteSize(text()));
+          break;
+        case TIME_DURATION:
+          tokens.add(DirectiveTokens.timeDuration(text()));
+          break;
+        default:
+          // The end of the directive, or something only the grammar can judge
+          return token;
+      }
+    }
+  }
+
+  private String text() {
+    return text.substring(start, end);
+  }
+
+  private boolean isBoolean() {
+    return text.startsWith("true", start) && end - start == 4 || text.startsWith("false", start) && end - start == 5;
+  }
+
+  /**
+   * Reads the next token, skipping whitespace and comments.
+   *
+   * @return the token type
+   */
+  private int next() {
+    while (pos < length) {
+      char c = text.charAt(pos);
+      if (c == ' ' || c == '\t' || (!recipe && (c == '\r' || c == '\n'))) {
+        pos++;
+      } else if (c == '#') {
+        while (pos < length && text.charAt(pos) != '\r' && text.charAt(pos) != '\n') {
+          pos++;
+        }
+      } else {
+        break;
+      }
+    }
+    if (pos == length) {
+      return EOF;
+    }
+    
+    start = pos;
+    char c = text.charAt(pos);
+    int type;
+    if (c == '\r' || c == '\n') {
+      end = pos + 1;
+      while (end < length && (text.charAt(end) == '\r' || text.charAt(end) == '\n')) {
+        end++;
+      }
+      type = NEWLINE;
+    } else if (isLetter(c) || c == '_') {
+      end = pos + 1;
+      while (end < length && (isLetter(text.charAt(end)) || isDigit(text.charAt(end))
+        || text.charAt(end) == '_' || text.charAt(end) == '-')) {
+        end++;
+      }
+      // The grammar lexes true and false as booleans, ahead of identifiers
+      type = isBoolean() ? BOOLEAN : IDENTIFIER;
+    } else if (c == '"' || c == '\'') {
+      end = string(pos, c);
+      type = STRING;
+    } else if (c == '{') {
+      end = property(pos);
+      type = PROPERTY;
+    } else if (c == ':') {
+      end = pos + 1;
+      type = COLON;
+    } else if (c == ';') {
+      end = pos + 1;
+      type = SEMICOLON;
+    } else if (isDigit(c) || c == '-' || c == '.') {
+      type = number(pos);
+    } else {
+      end = -1;
+      type = UNKNOWN;
+    }
+    
+    if (end < 0) {
+      return UNKNOWN;
+    }
+    pos = end;
+    return type;
+  }
+
+  /**
+   * Matches the numeric tokens at a position and keeps the longest, preferring the earlier rule on a tie,
+   * as the lexer does.
+   *
+   * @param at the position
+   * @return the token type, with {@link #end} set to the end of the match
+   */
+  private int number(int at) {
+    int type = UNKNOWN;
+    end = -1;
+    int[] ends = {decimal(at), floating(at), byteSize(at), timeDuration(at)};
+    int[] types = {DECIMAL, FLOAT, BYTE_SIZE, TIME_DURATION};
+    for (int i = 0; i < ends.length; i++) {
+      if (ends[i] > end) {
+        end = ends[i];
+        type = types[i];
+      }
+    }
+    return type;
+  }
+
+  // '-'? [0-9]+
+  private int decimal(int at) {
+    int i = at < length && text.charAt(at) == '-' ? at + 1 : at;
+    int digits = digits(i);
+    return digits > i ? digits : -1;
+  }
+
+  // '-'? [0-9]+ '.' [0-9]* EXPONENT? | '-'? '.' [0-9]+ EXPONENT? | '-'? [0-9]+ EXPONENT
+  private int floating(int at) {
+    int i = at < length && text.charAt(at) == '-' ? at + 1 : at;
+    int digits = digits(i);
+    if (digits > i) {
+      if (digits < length && text.charAt(digits) == '.') {
+        return exponent(digits(digits + 1), true);
+      }
+      return exponent(digits, false);
+    }
+    if (i < length && text.charAt(i) == '.') {
+      int fraction = digits(i + 1);
+      return fraction > i + 1 ? exponent(fraction, true) : -1;
+    }
+    return -1;
+  }
+
+  /**
+   * Matches an exponent, which is optional when a decimal point has been matched.
+   *
+   * @param at the position after the mantissa
+   * @param optional whether the match succeeds without an exponent
+   * @return the end of the match, or -1
+   */
+  private int exponent(int at, boolean optional) {
+    if (at < length && (text.charAt(at) == 'e' || text.charAt(at) == 'E')) {
+      int i = at + 1;
+      if (i < length && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+        i++;
+      }
+      int digits = digits(i);
+      if (digits > i) {
+        return digits;
+      }
+    }
+    return optional ? at : -1;
+  }
+
+  // [0-9]+ ('.' [0-9]+)? SPACE?, the number in front of a unit
+  private int quantity(int at) {
+    int digits = digits(at);
+    if (digits == at) {
+      return -1;
+    }
+    if (digits + 1 < length && text.charAt(digits) == '.' && isDigit(text.charAt(digits + 1))) {
+      digits = digits(digits + 1);
+    }
+    while (digits < length && isSpace(text.charAt(digits))) {
+      digits++;
+    }
+    return digits;
+  }
+
+  // quantity [KkMmGgTtPp]? [Bb]
+  private int byteSize(int at) {
+    int i = quantity(at);
+    if (i < 0 || i >= length) {
+      return -1;
+    }
+    if ("KkMmGgTtPp".indexOf(text.charAt(i)) >= 0 && i + 1 < length && isByte(text.charAt(i + 1))) {
+      return i + 2;
+    }
+    return isByte(text.charAt(i)) ? i + 1 : -1;
+  }
+
+  // quantity ('ns' | 'μs' | 'ms' | 's' | 'm' | 'h' | 'd')
+  private int timeDuration(int at) {
+    int i = quantity(at);
+    if (i < 0 || i >= length) {
+      return -1;
+    }
+    char unit = text.charAt(i);
+    boolean seconds = i + 1 < length && text.charAt(i + 1) == 's';
+    switch (unit) {
+      case 'n':
+      case 'μ':
+        return seconds ? i + 2 : -1;
+      case 'm':
+        return seconds ? i + 2 : i + 1;
+      case 's':
+      case 'h':
+      case 'd':
+        return i + 1;
+      default:
+        return -1;
+    }
+  }
+
+  // A quoted string where only the quote and the backslash can be escaped, and no line breaks
+  private int string(int at, char quote) {
+    int i = at + 1;
+    while (i < length) {
+      char c = text.charAt(i);
+      if (c == quote) {
+        return i + 1;
+      }
+      if (c == '\r' || c == '\n') {
+        return -1;
+      }
+      if (c == '\\') {
+        if (i + 1 >= length || (text.charAt(i + 1) != '\\' && text.charAt(i + 1) != quote)) {
+          return -1;
+        }
+        i++;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  // '{' (~[{}] | PROPERTY)* '}'
+  private int property(int at) {
+    int depth = 0;
+    for (int i = at; i < length; i++) {
+      char c = text.charAt(i);
+      if (c == '{') {
+        depth++;
+      } else if (c == '}' && --depth == 0) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  private int digits(int at) {
+    int i = at;
+    while (i < length && isDigit(text.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t';
+  }
+
+  private static boolean isByte(char c) {
+    return c == 'B' || c == 'b';
+  }
+}
@@ -16,6 +16,7 @@
 
 package io.cdap.wrangler.parser;
 
+import io.cdap.wrangler.api.BoundedCache;
 import io.cdap.wrangler.api.parser.ByteSize;
 import io.cdap.wrangler.api.parser.ColumnName;
 import io.cdap.wrangler.api.parser.DirectiveName;
@@ -26,44 +27,490 @@ import io.cdap.wrangler.api.parser.Token;
 import io.cdap.wrangler.api.parser.TokenGroup;
 import io.cdap.wrangler.grammar.DirectivesLexer;
 import io.cdap.wrangler.grammar.DirectivesParser;
-import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 /**
  * This class <code>GrammarBasedParser</code> parses directives using ANTLR-generated grammar.
+ * Parsed directives are kept in a bounded cache shared by all parsers, keyed by the directive text, so a
+ * recipe parsed again by another task reuses the tokens of the first parse.
+ * Parsers are thread-safe: each thread parses with its own lexer and parser, which are reset for every
+ * directive rather than created again, so one parser object can be shared by any number of threads.
+ * Directives are parsed in two stages: a fast pass with SLL prediction that gives up at the first error,
+ * and, only when that fails, a full LL pass that reports the first error with its position.
+ * By default directives are first read by the hand-written {@link FastDirectiveParser}, and only those it
+ * does not recognize go through the grammar, where no parse tree is built: the grammar actions emit each
+ * token as it is matched. A parser can instead skip the fast path, or build the tree and walk it with a
+ * {@link DirectivesListener}; every {@link Mode} gives the same tokens.
+ * Whole recipes are parsed in one lexer pass by {@link #parseRecipe(String)}.
  */
 public class GrammarBasedParser {
+  // Number of distinct directive texts kept by the parse cache
+  private static final int CACHE_CAPACITY = 1024;
+  
+  // Immutable token groups of recently parsed directives
+  private static final BoundedCache<String, TokenGroup> CACHE = new BoundedCache<>(CACHE_CAPACITY);
+  
+  // Length in chars above which a recipe is split across threads when parsing in parallel
+  private static final int PARALLEL_RECIPE_THRESHOLD = 64 * 1024;
+  
+  // Smallest chunk a recipe is split into, so each parallel task has enough work to be worth forking
+  private static final int MIN_RECIPE_CHUNK = 16 * 1024;
+  
+  // Directives with every kind of argument, and one error, that warm up the parser when no corpus is given
+  private static final List<String> WARM_UP_CORPUS = Arrays.asList(
+    "aggregate-stats :size :time 'total_size' 'total_time' 'MB' 'ms'",
+    "aggregate-stats :size :time \"size\" \"time\" 5KB 1.5 s {quantiles=true}",
+    "format-readable :size 'size'",
+    "format-readable :time 'time' 'ms' 42 -1.5 2e3 250μs 1 h # comment",
+    "aggregate-stats :size @"
+  );
+  
+  // Lexer, token stream and parser of the current thread, reused from one directive to the next
+  private static final ThreadLocal<Pipeline> PIPELINES = ThreadLocal.withInitial(Pipeline::new);
+  
+  // How directives are turned into tokens
+  private final Mode mode;
+  
+  /**
+   * The ways a parser can turn a directive into tokens.
+   */
+  public enum Mode {
+    /**
+     * The hand-written parser, falling back to the grammar for any input it does not recognize.
+     */
+    FAST_PATH,
+    /**
+     * The grammar only, taking the tokens its actions emit while parsing, without a parse tree.
+     */
+    GRAMMAR,
+    /**
+     * The grammar only, building a parse tree and walking it with a {@link DirectivesListener}. Recipes are
+     * parsed as in {@link #GRAMMAR}.
+     */
+    PARSE_TREE
+  }
+  
   /**
-   * Parses a directive string into tokens.
+   * Constructor for a parser that uses the fast path, falling back to the grammar.
+   */
+  public GrammarBasedParser() {
+    this(Mode.FAST_PATH);
+  }
+  
+  /**
+   * Constructor.
+   *
+   * @param mode how directives are turned into tokens
+   */
+  public GrammarBasedParser(Mode mode) {
+    this.mode = mode;
+  }
+  
+  /**
+   * Parses a directive string into tokens. Directives already in the cache are not parsed again, and every
+   * caller of the same text gets the same group.
    *
    * @param directive the directive string
-   * @return a group of tokens representing the directive and its arguments
+   * @return an immutable group of tokens representing the directive and its arguments
    * @throws SyntaxError if the directive cannot be parsed
    */
   public TokenGroup parse(String directive) throws SyntaxError {
+    if (directive == null) {
+      return parseTokens(null);
+    }
+    return CACHE.get(directive, this::parseTokens);
+  }
+  
+  /**
+   * Parses a recipe of directives separated by newlines or semicolons, with the whole recipe read in one
+   * lexer and parser pass. Empty lines, blank directives and comments are skipped. Recipes are always parsed
+   * without a parse tree and do not go through the directive cache.
+   *
+   * @param recipe the recipe
+   * @return an immutable group of tokens per directive, in recipe order
+   * @throws SyntaxError if a directive cannot be parsed, reporting the line and column of the first error
+   */
+  public List<TokenGroup> parseRecipe(String recipe) throws SyntaxError {
+    return parseRecipe(recipe, false);
+  }
+  
+  /**
+   * Parses a recipe of directives separated by newlines or semicolons. In parallel mode a recipe longer
+   * than 64K chars is split into chunks of whole directives, which are parsed on the common fork-join pool;
+   * the result is the same as a sequential parse, and an error is reported at its position in the recipe.
+   *
+   * @param recipe the recipe
+   * @param parallel whether large recipes may be parsed on several threads
+   * @return an immutable group of tokens per directive, in recipe order
+   * @throws SyntaxError if a directive cannot be parsed, reporting the line and column of the first error
+   */
+  public List<TokenGroup> parseRecipe(String recipe, boolean parallel) throws SyntaxError {
+    if (!parallel || recipe == null || recipe.length() <= PARALLEL_RECIPE_THRESHOLD) {
+      return Collections.unmodifiableList(parseChunk(recipe, 1, 0));
+    }
+    
+    int chunkSize = Math.max(MIN_RECIPE_CHUNK,
+                             recipe.length() / (4 * ForkJoinPool.commonPool().getParallelism()));
+    List<ForkJoinTask<List<TokenGroup>>> tasks = new ArrayList<>();
+    for (RecipeSplitter.Chunk chunk : RecipeSplitter.split(recipe, chunkSize)) {
+      tasks.add(ForkJoinPool.commonPool().submit(
+        () -> parseChunk(recipe.substring(chunk.start, chunk.end), chunk.line, chunk.column)));
+    }
+    
+    // Join in recipe order, so the error reported is the first one in the recipe
+    List<TokenGroup> directives = new ArrayList<>();
     try {
-      // Create a lexer for the input
-      ANTLRInputStream input = new ANTLRInputStream(directive);
-      DirectivesLexer lexer = new DirectivesLexer(input);
-      
-      // Create a parser for the tokens
-      CommonTokenStream tokens = new CommonTokenStream(lexer);
-      DirectivesParser parser = new DirectivesParser(tokens);
-      
-      // Parse the directive
-      ParseTree tree = parser.parse();
-      
-      // Visit the parse tree to extract tokens
-      DirectivesListener listener = new DirectivesListener();
-      listener.visit(tree);
+      for (ForkJoinTask<List<TokenGroup>> task : tasks) {
+        directives.addAll(task.get());
+      }
+    } catch (ExecutionException e) {
+      // The pool may rewrap the exception thrown by a worker, so look for the parse error in the chain
+      for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+        if (cause instanceof SyntaxError) {
+          throw (SyntaxError) cause;
+        }
+      }
+      throw new SyntaxError("Failed to parse recipe", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SyntaxError("Interrupted while parsing recipe", e);
+    } finally {
+      for (ForkJoinTask<List<TokenGroup>> task : tasks) {
+        task.cancel(false);
+      }
+    }
+    return Collections.unmodifiableList(directives);
+  }
+  
+  /**
+   * Parses part of a recipe.
+   *
+   * @param recipe the part of the recipe
+   * @param line the line of the recipe the part starts at, counting from 1
+   * @param column the column of that line the part starts at, counting from 0
+   * @return the immutable token groups of the directives
+   * @throws SyntaxError if a directive cannot be parsed
+   */
+  private List<TokenGroup> parseChunk(String recipe, int line, int column) throws SyntaxError {
+    try {
+      List<TokenGroup> directives = mode == Mode.FAST_PATH ? FastDirectiveParser.parseRecipe(recipe) : null;
+      if (directives == null) {
+        directives = PIPELINES.get().recipe(recipe);
+      }
+      for (int i = 0; i < directives.size(); i++) {
+        directives.set(i, directives.get(i).toImmutable());
+      }
+      return directives;
+    } catch (ReportedError e) {
+      throw new SyntaxError("Failed to parse recipe, at " + e.describe(line, column), e);
+    } catch (Exception e) {
+      throw new SyntaxError("Failed to parse recipe", e);
+    }
+  }
+  
+  /**
+   * @return the number of {@link #parse(String)} calls that found their directive in the cache
+   */
+  public static long getCacheHits() {
+    return CACHE.hitCount();
+  }
+  
+  /**
+   * @return the number of {@link #parse(String)} calls that had to parse their directive
+   */
+  public static long getCacheMisses() {
+    return CACHE.missCount();
+  }
+  
+  /**
+   * Removes every directive from the parse cache.
+   */
+  public static void clearCache() {
+    CACHE.clear();
+  }
+  
+  /**
+   * Warms up the parser with a small built-in corpus that has every kind of argument.
+   *
+   * @return the number of directives of the corpus that parsed
+   * @see #warmUp(Iterable)
+   */
+  public static int warmUp() {
+    return warmUp(WARM_UP_CORPUS);
+  }
+  
+  /**
+   * Warms up the parser, so that the first directives of a short-lived process do not pay for class loading
+   * and ANTLR start-up. Each directive is parsed by the grammar on the calling thread, on its own and as a
+   * recipe, which deserializes the ATN and fills the lexer and parser DFA caches. Those caches are shared by
+   * every thread, so later parses predict from the DFA instead of simulating the ATN. Directives that do
+   * not parse still warm up error reporting, and the parse cache is left untouched.
+   *
+   * @param directives directives like the ones that will be parsed
+   * @return the number of directives that parsed
+   */
+  public static int warmUp(Iterable<String> directives) {
+    Pipeline pipeline = PIPELINES.get();
+    int parsed = 0;
+    for (String directive : directives) {
+      if (directive == null) {
+        continue;
+      }
+      FastDirectiveParser.parse(directive);
+      try {
+        pipeline.emit(directive);
+        pipeline.recipe(directive);
+        parsed++;
+      } catch (RuntimeException e) {
+        // A syntax error, which has still been through the full LL pass and the error listener
+      }
+    }
+    return parsed;
+  }
+  
+  /**
+   * Parses a directive string in the mode of this parser, bypassing the cache.
+   *
+   * @param directive the directive string
+   * @return an immutable group of tokens
+   * @throws SyntaxError if the directive cannot be parsed
+   */
+  private TokenGroup parseTokens(String directive) throws SyntaxError {
+    try {
+      TokenGroup fast = mode == Mode.FAST_PATH ? FastDirectiveParser.parse(directive) : null;
+      if (fast != null) {
+        return fast.toImmutable();
+      }
       
-      return listener.getTokens();
+      // Parse the directive with the instances of this thread
+      Pipeline pipeline = PIPELINES.get();
+      if (mode != Mode.PARSE_TREE) {
+        return pipeline.emit(directive).toImmutable();
+      }
+      return pipeline.tree(directive).toImmutable();
+    } catch (ReportedError e) {
+      throw new SyntaxError(String.format("Failed to parse directive: %s, at %s", directive, e.describe(1, 0)), e);
     } catch (Exception e) {
       throw new SyntaxError("Failed to parse directive: " + directive, e);
     }
   }
 
+  /**
+   * The lexer, token stream and parser of one thread. Resetting them costs far less than building them,
+   * and the input is read as a code point stream instead of being copied into a char array first. Every
+   * parse ends by releasing its input, so an idle thread does not keep its last directive or recipe alive.
+   */
+  private static final class Pipeline {
+    // Input of an idle pipeline; nothing reads from it, so one stream serves every release
+    private final CharStream empty = CharStreams.fromString("");
+    private final DirectivesLexer lexer = new DirectivesLexer(empty);
+    private final CommonTokenStream tokens = new CommonTokenStream(lexer);
+    private final DirectivesParser parser = new DirectivesParser(tokens);
+    private final ReleasingSimulator simulator = new ReleasingSimulator(parser);
+    private final BailErrorStrategy bail = new BailErrorStrategy();
+    private final DefaultErrorStrategy report = new DefaultErrorStrategy();
+    private TokenGroup emitted;
+    private List<TokenGroup> directives;
+
+    private Pipeline() {
+      parser.setInterpreter(simulator);
+      // Errors are thrown instead of printed, and a directive with an error is never returned
+      lexer.removeErrorListeners();
+      lexer.addErrorListener(ThrowingErrorListener.INSTANCE);
+      parser.removeErrorListeners();
+      parser.addErrorListener(ThrowingErrorListener.INSTANCE);
+    }
+
+    /**
+     * Parses a directive without building a parse tree, collecting the tokens the grammar emits.
+     *
+     * @param directive the directive string
+     * @return the tokens
+     * @throws ReportedError if the directive has a syntax error
+     */
+    private TokenGroup emit(String directive) {
+      parser.setBuildParseTree(false);
+      try {
+        parse(directive, true, false);
+        return emitted;
+      } finally {
+        emitted = null;
+        parser.emitTo(null);
+        release();
+      }
+    }
+
+    /**
+     * Parses a recipe without building a parse tree, collecting the tokens the grammar emits.
+     *
+     * @param recipe the recipe
+     * @return the tokens of each directive
+     * @throws ReportedError if the recipe has a syntax error
+     */
+    private List<TokenGroup> recipe(String recipe) {
+      parser.setBuildParseTree(false);
+      lexer.setRecipe(true);
+      try {
+        parse(recipe, true, true);
+        return directives;
+      } finally {
+        lexer.setRecipe(false);
+        emitted = null;
+        directives = null;
+        parser.emitTo(null);
+        parser.emitRecipeTo(null);
+        release();
+      }
+    }
+
+    /**
+     * Parses a directive into a parse tree and walks it with a {@link DirectivesListener}.
+     *
+     * @param directive the directive string
+     * @return the tokens
+     * @throws ReportedError if the directive has a syntax error
+     */
+    private TokenGroup tree(String directive) {
+      parser.setBuildParseTree(true);
+      try {
+        // The tree refers to the input, so it is walked before the input is released
+        DirectivesListener listener = new DirectivesListener();
+        listener.visit(parse(directive, false, false));
+        return listener.getTokens();
+      } finally {
+        release();
+      }
+    }
+
+    /**
+     * Points every stage at an empty input, dropping the text, tokens and rule contexts of the last parse.
+     * Nothing is allocated, and the prediction DFA shared by all parsers is kept.
+     */
+    private void release() {
+      lexer.setInputStream(empty);
+      tokens.setTokenSource(lexer);
+      parser.setTokenStream(tokens);
+      simulator.release();
+    }
+
+    /**
+     * Parses a directive, resetting every stage for the new input first. The fast SLL pass is exact for
+     * every input it accepts, so the LL pass only runs for directives that have an error or, rarely, need
+     * full context to be predicted.
+     *
+     * @param text the directive or recipe
+     * @param emit whether the grammar actions collect tokens
+     * @param recipe whether the text is parsed as a recipe rather than a single directive
+     * @return the parse tree, which has no children when no tree is built
+     * @throws ReportedError if the text has a syntax error
+     */
+    private ParseTree parse(String text, boolean emit, boolean recipe) {
+      lexer.setInputStream(CharStreams.fromString(text));
+      tokens.setTokenSource(lexer);
+      parser.setTokenStream(tokens);
+      
+      parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+      parser.setErrorHandler(bail);
+      startEmitting(emit, recipe);
+      try {
+        return recipe ? parser.recipe() : parser.parse();
+      } catch (ParseCancellationException e) {
+        // Rewind the tokens read so far and parse again with full context and error reporting
+        parser.reset();
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        parser.setErrorHandler(report);
+        // Drop whatever the fast pass emitted before it gave up
+        startEmitting(emit, recipe);
+        return recipe ? parser.recipe() : parser.parse();
+      }
+    }
+
+    private void startEmitting(boolean emit, boolean recipe) {
+      // A recipe starts a new group at each directive, a single directive emits into one group
+      emitted = emit && !recipe ? new TokenGroup() : null;
+      directives = emit && recipe ? new ArrayList<>() : null;
+      parser.emitTo(emitted);
+      parser.emitRecipeTo(directives);
+    }
+  }
+
+  /**
+   * The prediction simulator of a pipeline's parser. After predicting, ANTLR keeps the token stream and the
+   * rule context of the last prediction, which would keep the last input alive; this lets them be dropped.
+   */
+  private static final class ReleasingSimulator extends ParserATNSimulator {
+    private ReleasingSimulator(DirectivesParser parser) {
+      super(parser, parser.getATN(), parser.getInterpreter().decisionToDFA,
+            parser.getInterpreter().getSharedContextCache());
+    }
+
+    private void release() {
+      _input = null;
+      _outerContext = null;
+    }
+  }
+
+  /**
+   * Turns the first syntax error of the lexer or the parser into a {@link ReportedError}, which stops
+   * parsing before any recovery is attempted.
+   */
+  private static final class ThrowingErrorListener extends BaseErrorListener {
+    private static final ThrowingErrorListener INSTANCE = new ThrowingErrorListener();
+
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                            int charPositionInLine, String msg, RecognitionException e) {
+      throw new ReportedError(line, charPositionInLine, msg);
+    }
+  }
+
+  /**
+   * A syntax error with its position, thrown out of the recognizers and turned into a {@link SyntaxError}.
+   */
+  private static final class ReportedError extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final int column;
+
+    private ReportedError(int line, int column, String message) {
+      super(message, null, false, false);
+      this.line = line;
+      this.column = column;
+    }
+
+    /**
+     * Describes the error at its position in a text of which the parsed input was a part.
+     *
+     * @param firstLine the line of the text the input started at, counting from 1
+     * @param firstColumn the column of that line the input started at, counting from 0
+     * @return the position and message of the error
+     */
+    private String describe(int firstLine, int firstColumn) {
+      return String.format("line %d:%d %s", firstLine - 1 + line,
+                           line == 1 ? firstColumn + column : column, getMessage());
+    }
+  }
+
   /**
    * Main method for testing.
    *
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class <code>RecipeSplitter</code> cuts a recipe into chunks of whole directives, so large recipes can
+ * be parsed in parallel. Chunks end at a newline or semicolon that separates directives, never at one inside
+ * a quoted string, a property map or a comment. Each chunk records where it starts, so errors found in it
+ * can be reported at their position in the whole recipe.
+ */
+final class RecipeSplitter {
+  private RecipeSplitter() {
+  }
+
+  /**
+   * A range of a recipe holding whole directives.
+   */
+  static final class Chunk {
+    final int start;
+    final int end;
+    // Line of the start, counting from 1, and its column, counting from 0
+    final int line;
+    final int column;
+
+    private Chunk(int start, int end, int line, int column) {
+      this.start = start;
+      this.end = end;
+      this.line = line;
+      this.column = column;
+    }
+  }
+
+  /**
+   * Splits a recipe into chunks of at least a given length, except for the last one.
+   *
+   * @param recipe the recipe
+   * @param size the length after which a chunk ends at the next separator
+   * @return the chunks, in order, covering the whole recipe
+   */
+  static List<Chunk> split(String recipe, int size) {
+    List<Chunk> chunks = new ArrayList<>();
+    int length = recipe.length();
+    int start = 0;
+    int startLine = 1;
+    int startColumn = 0;
+    int line = 1;
+    int lineStart = 0;
+    int depth = 0;
+    char quote = 0;
+    boolean comment = false;
+    
+    for (int i = 0; i < length; i++) {
+      char c = recipe.charAt(i);
+      boolean separator = false;
+      if (c == '\n') {
+        // Strings and comments end at a newline, but property maps can span lines
+        line++;
+        lineStart = i + 1;
+        comment = false;
+        quote = 0;
+        separator = depth == 0;
+      } else if (comment) {
+        continue;
+      } else if (depth > 0) {
+        if (c == '{') {
+          depth++;
+        } else if (c == '}') {
+          depth--;
+        }
+      } else if (quote != 0) {
+        if (c == '\\' && i + 1 < length && recipe.charAt(i + 1) != '\n') {
+          i++;
+        } else if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (c == '{') {
+        depth = 1;
+      } else if (c == '#') {
+        comment = true;
+      } else if (c == ';') {
+        separator = true;
+      }
+      
+      if (separator && i + 1 - start >= size) {
+        chunks.add(new Chunk(start, i + 1, startLine, startColumn));
+        start = i + 1;
+        startLine = line;
+        startColumn = start - lineStart;
+      }
+    }
+    
+    if (start < length || chunks.isEmpty()) {
+      chunks.add(new Chunk(start, length, startLine, startColumn));
+    }
+    return chunks;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.steps.transformation;
+
+import io.cdap.wrangler.api.parser.SyntaxError;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * This class <code>AccumulateTask</code> aggregates a range of input positions on a {@link ForkJoinPool}.
+ * Ranges larger than the threshold are split in half, each half is aggregated into its own
+ * {@link StatsAccumulator}, and the two partial states are merged left to right, so groups keep the order
+ * a sequential pass would give them.
+ */
+final class AccumulateTask extends RecursiveTask<StatsAccumulator> {
+  private static final long serialVersionUID = 1L;
+
+  private final Range range;
+  private final Supplier<StatsAccumulator> factory;
+  private final int from;
+  private final int to;
+  private final int threshold;
+
+  /**
+   * Aggregates the positions of one range into an accumulator.
+   */
+  interface Range {
+    /**
+     * Adds the input positions from <code>from</code> (inclusive) to <code>to</code> (exclusive).
+     *
+     * @param from the first position
+     * @param to the position after the last one
+     * @param stats the accumulator to add to
+     * @throws SyntaxError if a value cannot be parsed
+     */
+    void accumulate(int from, int to, StatsAccumulator stats) throws SyntaxError;
+  }
+
+  private AccumulateTask(Range range, Supplier<StatsAccumulator> factory, int from, int to, int threshold) {
+    this.range = range;
+    this.factory = factory;
+    this.from = from;
+    this.to = to;
+    this.threshold = threshold;
+  }
+
+  /**
+   * Aggregates the positions <code>[0, size)</code>, in parallel on the common pool when there are more than
+   * <code>threshold</code> of them and sequentially on the calling thread otherwise.
+   *
+   * @param range the range aggregation
+   * @param factory creates the accumulator of each range
+   * @param size the number of positions
+   * @param threshold the largest range aggregated without splitting
+   * @return the aggregated state
+   * @throws SyntaxError if a value cannot be parsed
+   */
+  static StatsAccumulator accumulate(Range range, Supplier<StatsAccumulator> factory, int size, int threshold)
+    throws SyntaxError {
+    if (size <= threshold) {
+      StatsAccumulator stats = factory.get();
+      range.accumulate(0, size, stats);
+      return stats;
+    }
+
+    try {
+      return ForkJoinPool.commonPool().invoke(new AccumulateTask(range, factory, 0, size,
+                                                                Math.max(1, threshold)));
+    } catch (CompletionException e) {
+      // The pool may rewrap the exception thrown by a worker, so look for the parse error in the chain
+      for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+        if (cause instanceof SyntaxError) {
+          throw (SyntaxError) cause;
+        }
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  protected StatsAccumulator compute() {
+    if (to - from <= threshold) {
+      StatsAccumulator stats = factory.get();
+      try {
+        range.accumulate(from, to, stats);
+      } catch (SyntaxError e) {
+        throw new CompletionException(e);
+      }
+      return stats;
+    }
+
+    int mid = (from + to) >>> 1;
+    AccumulateTask left = new AccumulateTask(range, factory, from, mid, threshold);
+    AccumulateTask right = new AccumulateTask(range, factory, mid, to, threshold);
+    left.fork();
+    StatsAccumulator rightStats = right.compute();
+    StatsAccumulator leftStats = left.join();
+    leftStats.merge(rightStats);
+    return leftStats;
+  }
+}
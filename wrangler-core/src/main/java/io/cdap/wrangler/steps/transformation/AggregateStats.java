@@ -21,17 +21,21 @@ import io.cdap.wrangler.api.DirectiveParseException;
 import io.cdap.wrangler.api.ExecutorContext;
 import io.cdap.wrangler.api.Optional;
 import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.RowBatch;
+import io.cdap.wrangler.api.RowSchema;
+import io.cdap.wrangler.api.SchemaRow;
+import io.cdap.wrangler.api.parser.Arguments;
 import io.cdap.wrangler.api.parser.ByteSize;
-import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.DurationUnit;
+import io.cdap.wrangler.api.parser.SizeUnit;
 import io.cdap.wrangler.api.parser.SyntaxError;
-import io.cdap.wrangler.api.parser.Text;
-import io.cdap.wrangler.api.parser.TextToken;
 import io.cdap.wrangler.api.parser.TimeDuration;
 import io.cdap.wrangler.api.parser.TokenType;
 import io.cdap.wrangler.api.parser.UsageDefinition;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * A directive for aggregating byte size and time duration values in a dataset.
@@ -40,46 +44,159 @@ import java.util.List;
 public class AggregateStats {
   public static final String NAME = "aggregate-stats";
   
+  /**
+   * Environment property holding the number of input rows above which execution is split across threads.
+   */
+  public static final String PARALLEL_THRESHOLD = NAME + ".parallel.threshold";
+  
+  private static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+  
   private final String sizeColumn;
   private final String timeColumn;
   private final String sizeOutColumn;
   private final String timeOutColumn;
-  private final String sizeUnit;
-  private final String timeUnit;
-  private final String operation;
+  private final SizeUnit sizeUnit;
+  private final DurationUnit timeUnit;
+  private final Operation[] operations;
+  private final boolean incremental;
+  private final String[] groupBy;
+  
+  // Totals carried across execute calls in incremental mode, guarded by its own monitor
+  private final StatsAccumulator running;
+  
+  // Column ordinals for the last schema seen; replaced as a whole so concurrent readers see a consistent set
+  private volatile Ordinals ordinals;
 
   /**
-   * Constructor for the AggregateStats directive.
+   * Constructor for the AggregateStats directive, from the values set on a usage definition.
    *
    * @param definition the parsed directive definition
+   * @throws IllegalArgumentException if an operation or unit is not recognized
    */
   public AggregateStats(UsageDefinition definition) {
-    this.sizeColumn = ((ColumnName) definition.value("size_column")).value();
-    this.timeColumn = ((ColumnName) definition.value("time_column")).value();
-    this.sizeOutColumn = ((Text) definition.value("size_out_col")).value();
-    this.timeOutColumn = ((Text) definition.value("time_out_col")).value();
+    this(definition.getValues());
+  }
+
+  /**
+   * Constructor for the AggregateStats directive, from arguments bound with
+   * {@link UsageDefinition#bind(io.cdap.wrangler.api.parser.TokenGroup)}. The directive keeps no reference to
+   * the arguments, and one instance can be executed by several threads at once.
+   *
+   * @param arguments the bound arguments
+   * @throws IllegalArgumentException if an operation or unit is not recognized
+   */
+  public AggregateStats(Arguments arguments) {
+    this.sizeColumn = arguments.columnName("size_column");
+    this.timeColumn = arguments.columnName("time_column");
+    this.sizeOutColumn = arguments.text("size_out_col");
+    this.timeOutColumn = arguments.text("time_out_col");
     
-    if (definition.value("size_unit") != null) {
-      this.sizeUnit = ((Text) definition.value("size_unit")).value();
+    if (arguments.has("size_unit")) {
+      this.sizeUnit = sizeUnit(arguments.text("size_unit"));
     } else {
-      this.sizeUnit = "B"; // Default to bytes
+      this.sizeUnit = SizeUnit.B; // Default to bytes
     }
     
-    if (definition.value("time_unit") != null) {
-      this.timeUnit = ((Text) definition.value("time_unit")).value();
+    if (arguments.has("time_unit")) {
+      this.timeUnit = timeUnit(arguments.text("time_unit"));
     } else {
-      this.timeUnit = "ns"; // Default to nanoseconds
+      this.timeUnit = DurationUnit.NS; // Default to nanoseconds
     }
     
-    if (definition.value("operation") != null) {
-      this.operation = ((Text) definition.value("operation")).value();
+    // Default to total
+    this.operations = operations(arguments.text("operation", "total"));
+    this.incremental = arguments.bool("incremental", false);
+    
+    if (arguments.has("group_by")) {
+      this.groupBy = arguments.text("group_by").trim().split("\\s*,\\s*");
     } else {
-      this.operation = "total"; // Default to total
+      this.groupBy = new String[0]; // No grouping, a single global result
+    }
+    
+    this.running = accumulator();
+  }
+
+  /**
+   * Resolves the output unit of the size column once, so an unknown unit fails before any row is read.
+   *
+   * @param symbol the unit symbol
+   * @return the unit
+   * @throws IllegalArgumentException if the unit is not recognized
+   */
+  private static SizeUnit sizeUnit(String symbol) {
+    try {
+      return SizeUnit.parse(symbol);
+    } catch (SyntaxError e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Resolves the output unit of the time column once, so an unknown unit fails before any row is read.
+   *
+   * @param symbol the unit symbol
+   * @return the unit
+   * @throws IllegalArgumentException if the unit is not recognized
+   */
+  private static DurationUnit timeUnit(String symbol) {
+    try {
+      return DurationUnit.parse(symbol);
+    } catch (SyntaxError e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
     }
   }
 
   /**
-   * Executes the directive on the input rows.
+   * Parses a comma-separated list of operations. Besides the {@link Statistic} names, an operation can be a
+   * percentile, where the first two digits after the <code>p</code> are the percentage and any further digits
+   * its decimals, so <code>p5</code> is the 5th percentile, <code>p50</code> is the median, <code>p999</code>
+   * is the 99.9th percentile and <code>p100</code> is the maximum.
+   *
+   * @param text the operation list
+   * @return the operations, in the order given
+   * @throws IllegalArgumentException if an operation is not recognized
+   */
+  private static Operation[] operations(String text) {
+    String[] names = text.trim().split("\\s*,\\s*");
+    Operation[] operations = new Operation[names.length];
+    for (int i = 0; i < names.length; i++) {
+      String name = names[i].toLowerCase();
+      if (name.matches("p\\d+")) {
+        String digits = name.substring(1);
+        // A single digit is a whole percentage, so p5 is 0.05 rather than 0.5
+        String fraction = digits.length() == 1 ? "0" + digits : digits;
+        double quantile = "100".equals(digits) ? 1.0 : Double.parseDouble("0." + fraction);
+        operations[i] = new Operation(name, null, quantile);
+        continue;
+      }
+      try {
+        operations[i] = new Operation(name, Statistic.valueOf(name.toUpperCase()), Double.NaN);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(
+          String.format("Unknown %s operation '%s'. Expected one of total, average, min, max, count, " +
+                          "variance, stddev or a percentile such as p99", NAME, names[i]));
+      }
+    }
+    return operations;
+  }
+
+  /**
+   * Creates an empty accumulator, keeping quantile sketches only when a percentile is requested.
+   *
+   * @return the accumulator
+   */
+  private StatsAccumulator accumulator() {
+    boolean quantiles = false;
+    for (Operation operation : operations) {
+      quantiles |= operation.statistic == null;
+    }
+    return new StatsAccumulator(quantiles);
+  }
+
+  /**
+   * Executes the directive on the input rows. Inputs larger than the parallel threshold are split across the
+   * common fork-join pool. In incremental mode the rows are added to the running totals and nothing is
+   * emitted until {@link #flush()} is called.
    *
    * @param rows the input rows
    * @param context the execution context
@@ -93,59 +210,382 @@ public class AggregateStats {
       return rows;
     }
     
+    // Splitting a list without random access would walk it once per split
+    int threshold = rows instanceof RandomAccess ? parallelThreshold(context) : Integer.MAX_VALUE;
+    
+    try {
+      return emit(AccumulateTask.accumulate((from, to, stats) -> accumulate(rows, from, to, stats),
+                                            this::accumulator, rows.size(), threshold));
+    } catch (SyntaxError e) {
+      throw new DirectiveExecutionException(e.getMessage());
+    }
+  }
+
+  /**
+   * Executes the directive on a columnar batch. String cells are parsed as byte sizes and time durations,
+   * while numeric cells are taken to already be in bytes and nanoseconds. Batches larger than the parallel
+   * threshold are split across the common fork-join pool. In incremental mode the batch is added to the
+   * running totals and nothing is emitted until {@link #flush()} is called.
+   *
+   * @param batch the input batch
+   * @param context the execution context
+   * @return the transformed rows
+   * @throws DirectiveExecutionException if an error occurs during execution
+   */
+  public List<Row> execute(RowBatch batch, ExecutorContext context)
+    throws DirectiveExecutionException {
+    
+    if (batch.isEmpty()) {
+      return new ArrayList<>();
+    }
+    
+    int sizeIdx = batch.indexOf(sizeColumn);
+    int timeIdx = batch.indexOf(timeColumn);
+    int[] groupIdx = new int[groupBy.length];
+    for (int k = 0; k < groupBy.length; k++) {
+      groupIdx[k] = batch.indexOf(groupBy[k]);
+    }
+    
     try {
-      // Track the sum of all values
-      double totalSizeBytes = 0.0;
-      double totalTimeNanos = 0.0;
-      int rowCount = 0;
+      if (sizeIdx < 0 || timeIdx < 0) {
+        return emit(accumulator());
+      }
+      return emit(AccumulateTask.accumulate((from, to, stats) ->
+                                              accumulate(batch, sizeIdx, timeIdx, groupIdx, from, to, stats),
+                                            this::accumulator, batch.size(), parallelThreshold(context)));
+    } catch (SyntaxError e) {
+      throw new DirectiveExecutionException(e.getMessage());
+    }
+  }
+
+  /**
+   * Adds a range of rows to an accumulator.
+   *
+   * @param rows the input rows
+   * @param from the index of the first row
+   * @param to the index after the last row
+   * @param stats the accumulator to add to
+   * @throws SyntaxError if a size or duration cannot be parsed
+   */
+  private void accumulate(List<Row> rows, int from, int to, StatsAccumulator stats) throws SyntaxError {
+    Object[] key = new Object[groupBy.length];
+    
+    // Process each row
+    for (Row row : rows.subList(from, to)) {
+      if (row instanceof SchemaRow) {
+        // Schema-bound rows are read by ordinal, resolved once per schema, and numeric cells stay unboxed
+        SchemaRow schemaRow = (SchemaRow) row;
+        Ordinals resolved = resolve(schemaRow.getSchema());
+        if (resolved.size >= 0 && resolved.time >= 0) {
+          if (schemaRow.isNull(resolved.size) || schemaRow.isNull(resolved.time)) {
+            continue;
+          }
+          for (int k = 0; k < key.length; k++) {
+            int ordinal = resolved.groups[k];
+            key[k] = ordinal >= 0 ? schemaRow.get(ordinal) : schemaRow.getValue(groupBy[k]);
+          }
+          int group = stats.addRow(key);
+          if (schemaRow.isNumeric(resolved.size)) {
+            addSize(stats, group, schemaRow.getLong(resolved.size), schemaRow.getDouble(resolved.size));
+          } else {
+            addSize(stats, group, schemaRow.get(resolved.size));
+          }
+          if (schemaRow.isNumeric(resolved.time)) {
+            addTime(stats, group, schemaRow.getLong(resolved.time), schemaRow.getDouble(resolved.time));
+          } else {
+            addTime(stats, group, schemaRow.get(resolved.time));
+          }
+          continue;
+        }
+      }
       
-      // Process each row
-      for (Row row : rows) {
-        if (row.has(sizeColumn) && row.has(timeColumn)) {
-          String sizeValue = row.getValue(sizeColumn).toString();
-          String timeValue = row.getValue(timeColumn).toString();
-          
-          // Parse the size and time values
-          ByteSize byteSize = new ByteSize(sizeValue);
-          TimeDuration timeDuration = new TimeDuration(timeValue);
-          
-          // Add to totals
-          totalSizeBytes += byteSize.value();
-          totalTimeNanos += timeDuration.value();
-          rowCount++;
+      Object size = row.getValue(sizeColumn);
+      Object time = row.getValue(timeColumn);
+      if (size == null || time == null) {
+        continue;
+      }
+      
+      for (int k = 0; k < key.length; k++) {
+        key[k] = row.getValue(groupBy[k]);
+      }
+      
+      // Add to the totals of the row's group
+      int group = stats.addRow(key);
+      addSize(stats, group, size);
+      addTime(stats, group, time);
+    }
+  }
+
+  /**
+   * Adds a range of batch positions to an accumulator, scanning the column vectors directly.
+   *
+   * @param batch the input batch
+   * @param sizeIdx the index of the size column
+   * @param timeIdx the index of the time column
+   * @param groupIdx the indexes of the group-by columns, -1 for columns missing from the batch
+   * @param from the first position
+   * @param to the position after the last one
+   * @param stats the accumulator to add to
+   * @throws SyntaxError if a size or duration cannot be parsed
+   */
+  private static void accumulate(RowBatch batch, int sizeIdx, int timeIdx, int[] groupIdx, int from, int to,
+                                 StatsAccumulator stats) throws SyntaxError {
+    Object[] key = new Object[groupIdx.length];
+    RowBatch.ColumnType sizeType = batch.getColumnType(sizeIdx);
+    RowBatch.ColumnType timeType = batch.getColumnType(timeIdx);
+    for (int i = from; i < to; i++) {
+      if (!batch.isNull(sizeIdx, i) && !batch.isNull(timeIdx, i)) {
+        for (int k = 0; k < key.length; k++) {
+          key[k] = groupIdx[k] >= 0 ? batch.getValue(groupIdx[k], i) : null;
+        }
+        int group = stats.addRow(key);
+        if (sizeType == RowBatch.ColumnType.LONG) {
+          stats.addSize(group, batch.getLong(sizeIdx, i));
+        } else if (sizeType == RowBatch.ColumnType.DOUBLE) {
+          stats.addSize(group, batch.getDouble(sizeIdx, i));
+        } else {
+          addSize(stats, group, batch.getValue(sizeIdx, i));
+        }
+        if (timeType == RowBatch.ColumnType.LONG) {
+          stats.addTime(group, batch.getLong(timeIdx, i));
+        } else if (timeType == RowBatch.ColumnType.DOUBLE) {
+          stats.addTime(group, batch.getDouble(timeIdx, i));
+        } else {
+          addTime(stats, group, batch.getValue(timeIdx, i));
         }
       }
+    }
+  }
+
+  /**
+   * Gets the number of input rows at or below which the directive runs on the calling thread.
+   *
+   * @param context the execution context, which may override the default through the environment
+   * @return the parallel threshold
+   */
+  private static int parallelThreshold(ExecutorContext context) {
+    if (context == null || context.getEnvironment() == null) {
+      return DEFAULT_PARALLEL_THRESHOLD;
+    }
+    String threshold = context.getEnvironment().get(PARALLEL_THRESHOLD,
+                                                    Integer.toString(DEFAULT_PARALLEL_THRESHOLD));
+    try {
+      return Integer.parseInt(threshold.trim());
+    } catch (NumberFormatException e) {
+      return DEFAULT_PARALLEL_THRESHOLD;
+    }
+  }
+
+  /**
+   * Emits the aggregated result accumulated in incremental mode and resets the running totals, so the next
+   * execute call starts a new aggregation. In non-incremental mode there is nothing to flush.
+   *
+   * @return a list holding the result row, or an empty list if no row has been aggregated
+   * @throws DirectiveExecutionException if an error occurs while building the result
+   */
+  public List<Row> flush() throws DirectiveExecutionException {
+    StatsAccumulator stats = accumulator();
+    synchronized (running) {
+      stats.merge(running);
+      running.reset();
+    }
+    
+    if (stats.getGroupCount() == 0) {
+      return new ArrayList<>();
+    }
+    return result(stats);
+  }
+
+  /**
+   * Hands the statistics of one execute call to the caller, or folds them into the running totals in
+   * incremental mode.
+   *
+   * @param stats the statistics of the current input
+   * @return the result rows to emit
+   */
+  private List<Row> emit(StatsAccumulator stats) {
+    if (incremental) {
+      synchronized (running) {
+        running.merge(stats);
+      }
+      return new ArrayList<>();
+    }
+    return result(stats);
+  }
+
+  /**
+   * Adds a size in bytes from a cell to a group. Numbers are taken to be bytes already, anything else is
+   * parsed.
+   *
+   * @param stats the accumulator
+   * @param group the group of the row
+   * @param value the cell value
+   * @throws SyntaxError if the value is not a valid byte size
+   */
+  private static void addSize(StatsAccumulator stats, int group, Object value) throws SyntaxError {
+    if (value instanceof Number) {
+      Number number = (Number) value;
+      addSize(stats, group, number.longValue(), number.doubleValue());
+    } else {
+      String text = value.toString();
+      double bytes = ByteSize.parseBytes(text);
+      // Below 2^53 the double is exact, so only larger sizes are scanned again for their whole bytes
+      addSize(stats, group, Math.abs(bytes) < 0x1p53 ? (long) bytes : ByteSize.parseExactBytes(text), bytes);
+    }
+  }
+
+  /**
+   * Adds a size to a group as a long when it is a whole number of bytes, so the total stays exact past
+   * 2^53 bytes where doubles can no longer hold every whole number.
+   *
+   * @param stats the accumulator
+   * @param group the group of the row
+   * @param bytes the size in whole bytes
+   * @param value the size in bytes, which may have a fraction
+   */
+  private static void addSize(StatsAccumulator stats, int group, long bytes, double value) {
+    if (bytes == value) {
+      stats.addSize(group, bytes);
+    } else {
+      stats.addSize(group, value);
+    }
+  }
+
+  /**
+   * Adds a duration in nanoseconds from a cell to a group. Numbers are taken to be nanoseconds already,
+   * anything else is parsed.
+   *
+   * @param stats the accumulator
+   * @param group the group of the row
+   * @param value the cell value
+   * @throws SyntaxError if the value is not a valid time duration
+   */
+  private static void addTime(StatsAccumulator stats, int group, Object value) throws SyntaxError {
+    if (value instanceof Number) {
+      Number number = (Number) value;
+      addTime(stats, group, number.longValue(), number.doubleValue());
+    } else {
+      String text = value.toString();
+      double nanos = TimeDuration.parseNanos(text);
+      // Below 2^53 the double is exact, so only longer durations are scanned again for their whole nanoseconds
+      addTime(stats, group, Math.abs(nanos) < 0x1p53 ? (long) nanos : TimeDuration.parseExactNanos(text), nanos);
+    }
+  }
+
+  /**
+   * Adds a duration to a group as a long when it is a whole number of nanoseconds, so the total stays
+   * exact past 2^53 nanoseconds.
+   *
+   * @param stats the accumulator
+   * @param group the group of the row
+   * @param nanos the duration in whole nanoseconds
+   * @param value the duration in nanoseconds, which may have a fraction
+   */
+  private static void addTime(StatsAccumulator stats, int group, long nanos, double value) {
+    if (nanos == value) {
+      stats.addTime(group, nanos);
+    } else {
+      stats.addTime(group, value);
+    }
+  }
+
+  /**
+   * Resolves the size, time and group-by columns against a schema, reusing the previous resolution when the schema is
+   * the same instance.
+   *
+   * @param schema the schema of the rows being processed
+   * @return the column ordinals
+   */
+  private Ordinals resolve(RowSchema schema) {
+    Ordinals current = ordinals;
+    if (current == null || current.schema != schema) {
+      int[] groups = new int[groupBy.length];
+      for (int k = 0; k < groupBy.length; k++) {
+        groups[k] = schema.indexOf(groupBy[k]);
+      }
+      current = new Ordinals(schema, schema.indexOf(sizeColumn), schema.indexOf(timeColumn), groups);
+      ordinals = current;
+    }
+    return current;
+  }
+
+  /**
+   * Builds the result rows from the accumulated statistics, one per group.
+   *
+   * @param stats the accumulated statistics
+   * @return a list holding the result rows
+   */
+  private List<Row> result(StatsAccumulator stats) {
+    List<Row> results = new ArrayList<>();
+    
+    // Without group-by columns, an input with no usable rows still yields a single row of zeros
+    if (stats.getGroupCount() == 0 && groupBy.length == 0) {
+      results.add(result(stats, -1, new Object[0]));
+    }
+    
+    for (int group = 0; group < stats.getGroupCount(); group++) {
+      results.add(result(stats, group, stats.getKey(group)));
+    }
+    return results;
+  }
+
+  /**
+   * Builds the result row of one group, with a pair of output columns per operation. A single operation
+   * writes to the output columns as named; several operations suffix each name with the operation.
+   *
+   * @param stats the accumulated statistics
+   * @param group the group id, or -1 for a row of zeros
+   * @param key the group-by values of the group
+   * @return the result row
+   */
+  private Row result(StatsAccumulator stats, int group, Object[] key) {
+    // Create a result row with the group-by values and the aggregated values
+    Row result = new Row();
+    for (int k = 0; k < key.length; k++) {
+      result.add(groupBy[k], key[k]);
+    }
+    
+    for (Operation operation : operations) {
+      String sizeOut = operations.length == 1 ? sizeOutColumn : sizeOutColumn + "_" + operation.name;
+      String timeOut = operations.length == 1 ? timeOutColumn : timeOutColumn + "_" + operation.name;
       
-      // Create a result row with aggregated values
-      Row result = new Row();
+      if (operation.statistic == Statistic.COUNT) {
+        // Counts have no unit
+        long count = group < 0 ? 0 : stats.getCount(group);
+        result.add(sizeOut, count);
+        result.add(timeOut, count);
+        continue;
+      }
       
-      // Apply operation (total or average)
       double finalSizeValue;
       double finalTimeValue;
-      
-      if ("average".equalsIgnoreCase(operation) && rowCount > 0) {
-        finalSizeValue = totalSizeBytes / rowCount;
-        finalTimeValue = totalTimeNanos / rowCount;
+      if (group < 0) {
+        finalSizeValue = 0.0;
+        finalTimeValue = 0.0;
+      } else if (operation.statistic == null) {
+        finalSizeValue = stats.getSizeQuantile(group, operation.quantile);
+        finalTimeValue = stats.getTimeQuantile(group, operation.quantile);
+      } else if (operation.statistic == Statistic.VARIANCE) {
+        // Variance is in squared units, so convert the standard deviation and square it
+        finalSizeValue = stats.getSize(group, Statistic.STDDEV);
+        finalTimeValue = stats.getTime(group, Statistic.STDDEV);
       } else {
-        finalSizeValue = totalSizeBytes;
-        finalTimeValue = totalTimeNanos;
+        finalSizeValue = stats.getSize(group, operation.statistic);
+        finalTimeValue = stats.getTime(group, operation.statistic);
       }
       
       // Convert to requested units
-      ByteSize resultSize = new ByteSize(finalSizeValue + "B");
-      TimeDuration resultTime = new TimeDuration(finalTimeValue + "ns");
-      
-      result.add(sizeOutColumn, resultSize.convertTo(sizeUnit));
-      result.add(timeOutColumn, resultTime.convertTo(timeUnit));
-      
-      // Return a single row with the aggregated results
-      List<Row> results = new ArrayList<>();
-      results.add(result);
-      
-      return results;
-    } catch (SyntaxError e) {
-      throw new DirectiveExecutionException(e.getMessage());
+      double size = sizeUnit.fromBytes(finalSizeValue);
+      double time = timeUnit.fromNanos(finalTimeValue);
+      if (operation.statistic == Statistic.VARIANCE) {
+        size *= size;
+        time *= time;
+      }
+      result.add(sizeOut, size);
+      result.add(timeOut, time);
     }
+    
+    return result;
   }
 
   /**
@@ -162,6 +602,40 @@ public class AggregateStats {
     builder.define("size_unit", TokenType.TEXT, Optional.TRUE);
     builder.define("time_unit", TokenType.TEXT, Optional.TRUE);
     builder.define("operation", TokenType.TEXT, Optional.TRUE);
+    builder.define("incremental", TokenType.BOOLEAN, Optional.TRUE);
+    builder.define("group_by", TokenType.TEXT, Optional.TRUE);
     return builder.build();
   }
-}
\ No newline at end of file
+
+  /**
+   * One requested operation: a statistic, or a percentile when the statistic is null.
+   */
+  private static final class Operation {
+    private final String name;
+    private final Statistic statistic;
+    private final double quantile;
+
+    private Operation(String name, Statistic statistic, double quantile) {
+      this.name = name;
+      this.statistic = statistic;
+      this.quantile = quantile;
+    }
+  }
+
+  /**
+   * Ordinals of the size, time and group-by columns within one schema.
+   */
+  private static final class Ordinals {
+    private final RowSchema schema;
+    private final int size;
+    private final int time;
+    private final int[] groups;
+
+    private Ordinals(RowSchema schema, int size, int time, int[] groups) {
+      this.schema = schema;
+      this.size = size;
+      this.time = time;
+      this.groups = groups;
+    }
+  }
+}
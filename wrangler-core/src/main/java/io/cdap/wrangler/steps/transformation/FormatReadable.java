@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.steps.transformation;
+
+import io.cdap.wrangler.api.DirectiveExecutionException;
+import io.cdap.wrangler.api.ExecutorContext;
+import io.cdap.wrangler.api.Optional;
+import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.parser.Arguments;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.DurationUnit;
+import io.cdap.wrangler.api.parser.SizeUnit;
+import io.cdap.wrangler.api.parser.SyntaxError;
+import io.cdap.wrangler.api.parser.TimeDuration;
+import io.cdap.wrangler.api.parser.TokenType;
+import io.cdap.wrangler.api.parser.UsageDefinition;
+
+import java.util.List;
+
+/**
+ * A directive for rewriting a byte size or time duration column in its most readable unit, such as
+ * <code>1536</code> bytes as <code>1.5KB</code>. Numeric cells are read in the given unit, and text cells are
+ * parsed, so <code>2048KB</code> becomes <code>2MB</code>.
+ */
+public class FormatReadable {
+  public static final String NAME = "format-readable";
+  
+  private final String column;
+  private final boolean size;
+  
+  // Factor from the unit of numeric cells to bytes or nanoseconds
+  private final double factor;
+
+  /**
+   * Constructor for the FormatReadable directive, from the values set on a usage definition.
+   *
+   * @param definition the parsed directive definition
+   * @throws IllegalArgumentException if the kind or unit is not recognized
+   */
+  public FormatReadable(UsageDefinition definition) {
+    this(definition.getValues());
+  }
+
+  /**
+   * Constructor for the FormatReadable directive, from arguments bound with
+   * {@link UsageDefinition#bind(io.cdap.wrangler.api.parser.TokenGroup)}.
+   *
+   * @param arguments the bound arguments
+   * @throws IllegalArgumentException if the kind or unit is not recognized
+   */
+  public FormatReadable(Arguments arguments) {
+    this.column = arguments.columnName("column");
+    
+    String kind = arguments.text("kind").trim();
+    if ("size".equalsIgnoreCase(kind)) {
+      this.size = true;
+    } else if ("time".equalsIgnoreCase(kind)) {
+      this.size = false;
+    } else {
+      throw new IllegalArgumentException(
+        String.format("Unknown %s kind '%s'. Expected size or time", NAME, kind));
+    }
+    
+    String unit = arguments.has("unit") ? arguments.text("unit").trim() : null;
+    try {
+      if (size) {
+        this.factor = unit == null ? 1.0 : SizeUnit.parse(unit).toBytes();
+      } else {
+        this.factor = unit == null ? 1.0 : DurationUnit.parse(unit).toNanos();
+      }
+    } catch (SyntaxError e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Executes the directive on the input rows, rewriting the column in place. Rows without a value in the
+   * column are left alone. One builder is reused for every row, so the only allocation per row is the
+   * resulting string.
+   *
+   * @param rows the input rows
+   * @param context the execution context
+   * @return the transformed rows
+   * @throws DirectiveExecutionException if a text cell is not a valid byte size or time duration
+   */
+  public List<Row> execute(List<Row> rows, ExecutorContext context) throws DirectiveExecutionException {
+    StringBuilder text = new StringBuilder();
+    try {
+      for (Row row : rows) {
+        Object value = row.getValue(column);
+        if (value == null) {
+          continue;
+        }
+        
+        text.setLength(0);
+        if (size) {
+          ByteSize.formatBytes(value instanceof Number
+                                 ? ((Number) value).doubleValue() * factor
+                                 : ByteSize.parseBytes(value.toString()), text);
+        } else {
+          TimeDuration.formatNanos(value instanceof Number
+                                     ? ((Number) value).doubleValue() * factor
+                                     : TimeDuration.parseNanos(value.toString()), text);
+        }
+        row.add(column, text.toString());
+      }
+    } catch (SyntaxError e) {
+      throw new DirectiveExecutionException(e.getMessage());
+    }
+    return rows;
+  }
+
+  /**
+   * Defines the usage of the directive.
+   *
+   * @return the usage definition
+   */
+  public static UsageDefinition getUsage() {
+    UsageDefinition.Builder builder = UsageDefinition.builder(NAME);
+    builder.define("column", TokenType.COLUMN_NAME);
+    builder.define("kind", TokenType.TEXT);
+    builder.define("unit", TokenType.TEXT, Optional.TRUE);
+    return builder.build();
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.steps.transformation;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class <code>GroupTable</code> assigns dense group ids to composite keys using open addressing with
+ * linear probing. Slots only hold ints; keys are stored once per group, so looking up an existing group
+ * allocates nothing. Group ids are handed out in insertion order, starting at 0.
+ */
+final class GroupTable {
+  private static final int INITIAL_CAPACITY = 16;
+
+  // Group id + 1 per slot, 0 marks an empty slot
+  private int[] slots;
+  private int[] hashes;
+  private Object[][] keys;
+  private int size;
+
+  GroupTable() {
+    this.slots = new int[INITIAL_CAPACITY];
+    this.hashes = new int[INITIAL_CAPACITY / 2];
+    this.keys = new Object[INITIAL_CAPACITY / 2][];
+  }
+
+  /**
+   * Finds the group of a key, creating it if the key has not been seen. The key array is copied on insert,
+   * so callers can reuse it between lookups.
+   *
+   * @param key the key values
+   * @return the group id
+   */
+  int findOrInsert(Object[] key) {
+    int hash = hash(key);
+    int mask = slots.length - 1;
+    int slot = hash & mask;
+    for (int entry = slots[slot]; entry != 0; entry = slots[slot]) {
+      int group = entry - 1;
+      if (hashes[group] == hash && Arrays.equals(keys[group], key)) {
+        return group;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    int group = size++;
+    if (group == keys.length) {
+      keys = Arrays.copyOf(keys, group * 2);
+      hashes = Arrays.copyOf(hashes, group * 2);
+    }
+    keys[group] = key.clone();
+    hashes[group] = hash;
+    slots[slot] = group + 1;
+
+    // Keep the load factor at or below one half
+    if (size * 2 > slots.length) {
+      rehash(slots.length * 2);
+    }
+    return group;
+  }
+
+  /**
+   * @return the number of groups
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Gets the key of a group.
+   *
+   * @param group the group id
+   * @return the key values, which must not be modified
+   */
+  Object[] key(int group) {
+    return keys[group];
+  }
+
+  /**
+   * Removes every group.
+   */
+  void clear() {
+    Arrays.fill(slots, 0);
+    Arrays.fill(keys, 0, size, null);
+    size = 0;
+  }
+
+  private void rehash(int capacity) {
+    int[] rehashed = new int[capacity];
+    int mask = capacity - 1;
+    for (int group = 0; group < size; group++) {
+      int slot = hashes[group] & mask;
+      while (rehashed[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      rehashed[slot] = group + 1;
+    }
+    slots = rehashed;
+  }
+
+  private static int hash(Object[] key) {
+    int hash = 1;
+    for (Object value : key) {
+      hash = 31 * hash + Objects.hashCode(value);
+    }
+    // Spread the high bits, since the table is indexed with a mask
+    return hash ^ (hash >>> 16);
+  }
+}
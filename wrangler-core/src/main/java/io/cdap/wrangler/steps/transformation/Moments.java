@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.steps.transformation;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * This class <code>Moments</code> keeps the streaming statistics of one column for every group of a
+ * {@link StatsAccumulator}, in primitive arrays indexed by group id. Means and squared deviations are
+ * updated with Welford's algorithm and combined with Chan's parallel formula, so variance stays accurate
+ * when values are large compared to their spread, where the textbook sum of squares cancels out.
+ * As long as a group only sees whole numbers, its total is also kept exactly in a long, moving to a
+ * {@link BigInteger} if the long overflows. Row counts are owned by the accumulator and passed in.
+ */
+final class Moments {
+  private double[] sums;
+  private double[] means;
+  private double[] m2s;
+  private double[] mins;
+  private double[] maxs;
+  private long[] exactSums;
+  private boolean[] inexact;
+  // Totals that overflowed a long, allocated on the first overflow
+  private BigInteger[] bigSums;
+
+  Moments(int capacity) {
+    this.sums = new double[capacity];
+    this.means = new double[capacity];
+    this.m2s = new double[capacity];
+    this.mins = new double[capacity];
+    this.maxs = new double[capacity];
+    this.exactSums = new long[capacity];
+    this.inexact = new boolean[capacity];
+  }
+
+  /**
+   * Prepares the slot of a newly created group.
+   *
+   * @param group the group id
+   */
+  void init(int group) {
+    if (group == sums.length) {
+      int capacity = group * 2;
+      sums = Arrays.copyOf(sums, capacity);
+      means = Arrays.copyOf(means, capacity);
+      m2s = Arrays.copyOf(m2s, capacity);
+      mins = Arrays.copyOf(mins, capacity);
+      maxs = Arrays.copyOf(maxs, capacity);
+      exactSums = Arrays.copyOf(exactSums, capacity);
+      inexact = Arrays.copyOf(inexact, capacity);
+      if (bigSums != null) {
+        bigSums = Arrays.copyOf(bigSums, capacity);
+      }
+    }
+    sums[group] = 0.0;
+    means[group] = 0.0;
+    m2s[group] = 0.0;
+    mins[group] = Double.POSITIVE_INFINITY;
+    maxs[group] = Double.NEGATIVE_INFINITY;
+    exactSums[group] = 0L;
+    inexact[group] = false;
+    if (bigSums != null) {
+      bigSums[group] = null;
+    }
+  }
+
+  /**
+   * Adds a value to a group.
+   *
+   * @param group the group id
+   * @param count the number of values in the group, including this one
+   * @param value the value
+   */
+  void add(int group, long count, double value) {
+    update(group, count, value);
+    if (!inexact[group]) {
+      if (value == Math.rint(value) && Math.abs(value) < 0x1p63) {
+        addExact(group, (long) value);
+      } else {
+        inexact[group] = true;
+      }
+    }
+  }
+
+  /**
+   * Adds a whole number to a group. The total stays exact even where the value has no exact double.
+   *
+   * @param group the group id
+   * @param count the number of values in the group, including this one
+   * @param value the value
+   */
+  void add(int group, long count, long value) {
+    update(group, count, value);
+    if (!inexact[group]) {
+      addExact(group, value);
+    }
+  }
+
+  /**
+   * Merges the statistics of a group of another column into a group of this one.
+   *
+   * @param group the group id in this column
+   * @param count the number of values in the group before the merge
+   * @param other the column to merge
+   * @param otherGroup the group id in the other column
+   * @param otherCount the number of values in the other group
+   */
+  void merge(int group, long count, Moments other, int otherGroup, long otherCount) {
+    long total = count + otherCount;
+    if (total == 0) {
+      return;
+    }
+    double delta = other.means[otherGroup] - means[group];
+    sums[group] += other.sums[otherGroup];
+    means[group] += delta * otherCount / total;
+    m2s[group] += other.m2s[otherGroup] + delta * delta * ((double) count * otherCount / total);
+    mins[group] = Math.min(mins[group], other.mins[otherGroup]);
+    maxs[group] = Math.max(maxs[group], other.maxs[otherGroup]);
+    inexact[group] |= other.inexact[otherGroup];
+    if (!inexact[group]) {
+      BigInteger otherBig = other.bigSums == null ? null : other.bigSums[otherGroup];
+      if (otherBig == null) {
+        addExact(group, other.exactSums[otherGroup]);
+      } else {
+        promote(group);
+        bigSums[group] = bigSums[group].add(otherBig);
+      }
+    }
+  }
+
+  /**
+   * Gets the exact total of a group.
+   *
+   * @param group the group id
+   * @return the total, or null if the group has seen a value that is not a whole number
+   */
+  BigInteger exactTotal(int group) {
+    if (inexact[group]) {
+      return null;
+    }
+    if (bigSums != null && bigSums[group] != null) {
+      return bigSums[group];
+    }
+    return BigInteger.valueOf(exactSums[group]);
+  }
+
+  /**
+   * Gets a statistic of a group.
+   *
+   * @param group the group id
+   * @param count the number of values in the group
+   * @param statistic the statistic
+   * @return the value of the statistic, 0 for an empty group
+   */
+  double get(int group, long count, Statistic statistic) {
+    if (count == 0) {
+      return 0.0;
+    }
+    switch (statistic) {
+      case TOTAL:
+        if (inexact[group]) {
+          return sums[group];
+        }
+        // Round the exact total once, rather than every partial sum
+        return bigSums != null && bigSums[group] != null ? bigSums[group].doubleValue() : exactSums[group];
+      case AVERAGE:
+        return means[group];
+      case MIN:
+        return mins[group];
+      case MAX:
+        return maxs[group];
+      case COUNT:
+        return count;
+      case VARIANCE:
+        return count > 1 ? m2s[group] / (count - 1) : 0.0;
+      case STDDEV:
+        return count > 1 ? Math.sqrt(m2s[group] / (count - 1)) : 0.0;
+      default:
+        throw new IllegalArgumentException("Unsupported statistic " + statistic);
+    }
+  }
+
+  private void update(int group, long count, double value) {
+    sums[group] += value;
+    double delta = value - means[group];
+    means[group] += delta / count;
+    m2s[group] += delta * (value - means[group]);
+    mins[group] = Math.min(mins[group], value);
+    maxs[group] = Math.max(maxs[group], value);
+  }
+
+  private void addExact(int group, long value) {
+    if (bigSums != null && bigSums[group] != null) {
+      bigSums[group] = bigSums[group].add(BigInteger.valueOf(value));
+      return;
+    }
+    long sum = exactSums[group];
+    long result = sum + value;
+    // The sum overflowed if both operands have a sign different from the result
+    if (((sum ^ result) & (value ^ result)) < 0) {
+      promote(group);
+      bigSums[group] = bigSums[group].add(BigInteger.valueOf(value));
+    } else {
+      exactSums[group] = result;
+    }
+  }
+
+  /**
+   * Moves the total of a group from its long to a big integer, if it is not there already.
+   *
+   * @param group the group id
+   */
+  private void promote(int group) {
+    if (bigSums == null) {
+      bigSums = new BigInteger[exactSums.length];
+    }
+    if (bigSums[group] == null) {
+      bigSums[group] = BigInteger.valueOf(exactSums[group]);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.steps.transformation;
+
+import java.util.Arrays;
+
+/**
+ * This class <code>QuantileSketch</code> estimates quantiles of non-negative values with a log-linear
+ * histogram, in the style of an HDR histogram. Each power of two is split into 128 linear sub-buckets, so an
+ * estimate is within 1% of the true value, values below 128 are counted exactly, and the memory used
+ * depends only on the largest value seen, never on the number of values. Two sketches can be merged.
+ */
+public final class QuantileSketch {
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private long[] counts = new long[SUB_BUCKETS];
+  private long total;
+  private long min = Long.MAX_VALUE;
+  private long max = Long.MIN_VALUE;
+
+  /**
+   * Adds a value, rounded to the nearest integer. Negative values are counted as zero.
+   *
+   * @param value the value
+   */
+  public void add(double value) {
+    long v = value <= 0 ? 0 : Math.round(value);
+    int index = index(v);
+    if (index >= counts.length) {
+      counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+    }
+    counts[index]++;
+    total++;
+    min = Math.min(min, v);
+    max = Math.max(max, v);
+  }
+
+  /**
+   * Merges the counts of another sketch into this one.
+   *
+   * @param other the sketch to merge
+   */
+  public void merge(QuantileSketch other) {
+    if (other.counts.length > counts.length) {
+      counts = Arrays.copyOf(counts, other.counts.length);
+    }
+    for (int i = 0; i < other.counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    total += other.total;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * Estimates a quantile.
+   *
+   * @param quantile the quantile, between 0 and 1
+   * @return the estimated value, or 0 if the sketch is empty
+   */
+  public double quantile(double quantile) {
+    if (total == 0) {
+      return 0.0;
+    }
+    // The rank of the value we are after, counting from 1
+    long rank = Math.max(1, (long) Math.ceil(quantile * total));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        // Report the middle of the bucket, kept within the values actually seen
+        double value = lowerBound(i) + (width(i) - 1) / 2.0;
+        return Math.min(Math.max(value, min), max);
+      }
+    }
+    return max;
+  }
+
+  /**
+   * @return the number of values added
+   */
+  public long getCount() {
+    return total;
+  }
+
+  private static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+  }
+
+  private static long lowerBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+  }
+
+  private static long width(int index) {
+    return index < SUB_BUCKETS ? 1 : 1L << (index / SUB_BUCKETS - 1);
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.steps.transformation;
+
+/**
+ * This enum <code>Statistic</code> represents the statistics a {@link StatsAccumulator} keeps for every
+ * group in a single pass.
+ */
+public enum Statistic {
+  /**
+   * Sum of all values.
+   */
+  TOTAL,
+  
+  /**
+   * Arithmetic mean.
+   */
+  AVERAGE,
+  
+  /**
+   * Smallest value.
+   */
+  MIN,
+  
+  /**
+   * Largest value.
+   */
+  MAX,
+  
+  /**
+   * Number of values.
+   */
+  COUNT,
+  
+  /**
+   * Sample variance, 0 for fewer than two values.
+   */
+  VARIANCE,
+  
+  /**
+   * Sample standard deviation, 0 for fewer than two values.
+   */
+  STDDEV
+}
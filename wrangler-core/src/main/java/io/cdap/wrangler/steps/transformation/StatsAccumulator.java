@@ -0,0 +1,304 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.steps.transformation;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * This class <code>StatsAccumulator</code> holds the running state of an {@link AggregateStats} aggregation,
+ * one group per distinct group-by key. Per-group counts and the {@link Moments} of both columns are kept in
+ * primitive arrays indexed by group id, so every {@link Statistic} is available after a single pass; when
+ * quantiles are tracked, each group also gets a {@link QuantileSketch} per column.
+ * Accumulators are not thread-safe, but two of them can be merged, so partial results computed separately
+ * can be combined.
+ */
+public final class StatsAccumulator {
+  private static final Object[] NO_KEY = new Object[0];
+  private static final int INITIAL_GROUPS = 8;
+
+  private final GroupTable groups = new GroupTable();
+  private final Moments sizes = new Moments(INITIAL_GROUPS);
+  private final Moments times = new Moments(INITIAL_GROUPS);
+  private long[] counts = new long[INITIAL_GROUPS];
+  private final boolean quantiles;
+  private QuantileSketch[] sizeSketches;
+  private QuantileSketch[] timeSketches;
+
+  /**
+   * Constructor for an accumulator that only tracks sums and counts.
+   */
+  public StatsAccumulator() {
+    this(false);
+  }
+
+  /**
+   * Constructor for an accumulator.
+   *
+   * @param quantiles whether to also keep quantile sketches of both columns
+   */
+  public StatsAccumulator(boolean quantiles) {
+    this.quantiles = quantiles;
+    if (quantiles) {
+      this.sizeSketches = new QuantileSketch[INITIAL_GROUPS];
+      this.timeSketches = new QuantileSketch[INITIAL_GROUPS];
+    }
+  }
+
+  /**
+   * Adds one row to the single group of an aggregation without group-by keys.
+   *
+   * @param sizeBytes the size in bytes
+   * @param timeNanos the duration in nanoseconds
+   */
+  public void add(double sizeBytes, double timeNanos) {
+    add(NO_KEY, sizeBytes, timeNanos);
+  }
+
+  /**
+   * Adds one row to the group of a key.
+   *
+   * @param key the group-by values of the row; the array is not retained and can be reused
+   * @param sizeBytes the size in bytes
+   * @param timeNanos the duration in nanoseconds
+   */
+  public void add(Object[] key, double sizeBytes, double timeNanos) {
+    int group = addRow(key);
+    addSize(group, sizeBytes);
+    addTime(group, timeNanos);
+  }
+
+  /**
+   * Counts one more row in the group of a key. Its size and duration must then be added to the returned
+   * group, once each, before the next row.
+   *
+   * @param key the group-by values of the row; the array is not retained and can be reused
+   * @return the group id
+   */
+  public int addRow(Object[] key) {
+    int group = group(key);
+    counts[group]++;
+    return group;
+  }
+
+  /**
+   * Adds the size of the last row counted in a group.
+   *
+   * @param group the group id
+   * @param sizeBytes the size in bytes
+   */
+  public void addSize(int group, double sizeBytes) {
+    sizes.add(group, counts[group], sizeBytes);
+    if (quantiles) {
+      sizeSketches[group].add(sizeBytes);
+    }
+  }
+
+  /**
+   * Adds the size of the last row counted in a group as a whole number of bytes, which keeps the exact
+   * total exact beyond 2^53 bytes.
+   *
+   * @param group the group id
+   * @param sizeBytes the size in bytes
+   */
+  public void addSize(int group, long sizeBytes) {
+    sizes.add(group, counts[group], sizeBytes);
+    if (quantiles) {
+      sizeSketches[group].add(sizeBytes);
+    }
+  }
+
+  /**
+   * Adds the duration of the last row counted in a group.
+   *
+   * @param group the group id
+   * @param timeNanos the duration in nanoseconds
+   */
+  public void addTime(int group, double timeNanos) {
+    times.add(group, counts[group], timeNanos);
+    if (quantiles) {
+      timeSketches[group].add(timeNanos);
+    }
+  }
+
+  /**
+   * Adds the duration of the last row counted in a group as a whole number of nanoseconds, which keeps the
+   * exact total exact beyond 2^53 nanoseconds.
+   *
+   * @param group the group id
+   * @param timeNanos the duration in nanoseconds
+   */
+  public void addTime(int group, long timeNanos) {
+    times.add(group, counts[group], timeNanos);
+    if (quantiles) {
+      timeSketches[group].add(timeNanos);
+    }
+  }
+
+  /**
+   * Merges the state of another accumulator into this one, group by group.
+   *
+   * @param other the accumulator to merge
+   */
+  public void merge(StatsAccumulator other) {
+    for (int g = 0; g < other.getGroupCount(); g++) {
+      int group = group(other.getKey(g));
+      sizes.merge(group, counts[group], other.sizes, g, other.counts[g]);
+      times.merge(group, counts[group], other.times, g, other.counts[g]);
+      counts[group] += other.counts[g];
+      if (quantiles && other.quantiles) {
+        sizeSketches[group].merge(other.sizeSketches[g]);
+        timeSketches[group].merge(other.timeSketches[g]);
+      }
+    }
+  }
+
+  /**
+   * Clears the accumulator.
+   */
+  public void reset() {
+    Arrays.fill(counts, 0, groups.size(), 0L);
+    if (quantiles) {
+      Arrays.fill(sizeSketches, 0, groups.size(), null);
+      Arrays.fill(timeSketches, 0, groups.size(), null);
+    }
+    groups.clear();
+  }
+
+  /**
+   * @return the number of groups, in the order their keys were first added
+   */
+  public int getGroupCount() {
+    return groups.size();
+  }
+
+  /**
+   * @param group the group id
+   * @return the group-by values of the group
+   */
+  public Object[] getKey(int group) {
+    return groups.key(group);
+  }
+
+  /**
+   * @param group the group id
+   * @return the sum of all sizes in bytes
+   */
+  public double getSizeSum(int group) {
+    return sizes.get(group, counts[group], Statistic.TOTAL);
+  }
+
+  /**
+   * @param group the group id
+   * @return the sum of all durations in nanoseconds
+   */
+  public double getTimeSum(int group) {
+    return times.get(group, counts[group], Statistic.TOTAL);
+  }
+
+  /**
+   * @param group the group id
+   * @return the number of rows added
+   */
+  public long getCount(int group) {
+    return counts[group];
+  }
+
+  /**
+   * @param group the group id
+   * @param statistic the statistic
+   * @return the statistic of the sizes in bytes, 0 for an empty group
+   */
+  public double getSize(int group, Statistic statistic) {
+    return sizes.get(group, counts[group], statistic);
+  }
+
+  /**
+   * @param group the group id
+   * @param statistic the statistic
+   * @return the statistic of the durations in nanoseconds, 0 for an empty group
+   */
+  public double getTime(int group, Statistic statistic) {
+    return times.get(group, counts[group], statistic);
+  }
+
+  /**
+   * @param group the group id
+   * @return the exact sum of all sizes in bytes, or null if a size was not a whole number of bytes
+   */
+  public BigInteger getExactSizeSum(int group) {
+    return sizes.exactTotal(group);
+  }
+
+  /**
+   * @param group the group id
+   * @return the exact sum of all durations in nanoseconds, or null if a duration was not a whole number of
+   *   nanoseconds
+   */
+  public BigInteger getExactTimeSum(int group) {
+    return times.exactTotal(group);
+  }
+
+  /**
+   * @param group the group id
+   * @param quantile the quantile, between 0 and 1
+   * @return the estimated quantile of the sizes in bytes
+   * @throws IllegalStateException if the accumulator does not track quantiles
+   */
+  public double getSizeQuantile(int group, double quantile) {
+    checkQuantiles();
+    return sizeSketches[group].quantile(quantile);
+  }
+
+  /**
+   * @param group the group id
+   * @param quantile the quantile, between 0 and 1
+   * @return the estimated quantile of the durations in nanoseconds
+   * @throws IllegalStateException if the accumulator does not track quantiles
+   */
+  public double getTimeQuantile(int group, double quantile) {
+    checkQuantiles();
+    return timeSketches[group].quantile(quantile);
+  }
+
+  private void checkQuantiles() {
+    if (!quantiles) {
+      throw new IllegalStateException("Quantiles are not tracked by this accumulator");
+    }
+  }
+
+  private int group(Object[] key) {
+    int size = groups.size();
+    int group = groups.findOrInsert(key);
+    if (group == counts.length) {
+      counts = Arrays.copyOf(counts, group * 2);
+      if (quantiles) {
+        sizeSketches = Arrays.copyOf(sizeSketches, group * 2);
+        timeSketches = Arrays.copyOf(timeSketches, group * 2);
+      }
+    }
+    if (group == size) {
+      sizes.init(group);
+      times.init(group);
+      if (quantiles) {
+        sizeSketches[group] = new QuantileSketch();
+        timeSketches[group] = new QuantileSketch();
+      }
+    }
+    return group;
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler;
+
+import io.cdap.wrangler.api.BoundedCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests for {@link BoundedCache} class.
+ */
+public class BoundedCacheTest {
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    // A single stripe, so eviction order is exact
+    BoundedCache<String, String> cache = new BoundedCache<>(1);
+    Assert.assertEquals("A", cache.get("a", String::toUpperCase));
+    Assert.assertEquals("A", cache.get("a", key -> "unused"));
+    Assert.assertEquals("B", cache.get("b", String::toUpperCase));
+    Assert.assertEquals(1, cache.size());
+    
+    // The entry for a was dropped, so it is loaded again
+    Assert.assertEquals("reloaded", cache.get("a", key -> "reloaded"));
+    Assert.assertEquals(1, cache.hitCount());
+    Assert.assertEquals(3, cache.missCount());
+    
+    cache.clear();
+    Assert.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testConcurrentLoadsShareOneValue() throws Exception {
+    BoundedCache<Integer, Object> cache = new BoundedCache<>(64);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Object>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        Callable<Object> lookup = () -> cache.get(42, key -> new Object());
+        futures.add(executor.submit(lookup));
+      }
+      Object first = futures.get(0).get();
+      for (Future<Object> future : futures) {
+        Assert.assertSame(first, future.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertEquals(8, cache.hitCount() + cache.missCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsEmptyCapacity() {
+    new BoundedCache<String, String>(0);
+  }
+
+  public static void main(String[] args) {
+    BoundedCacheTest test = new BoundedCacheTest();
+
+    try {
+      System.out.println("Running BoundedCacheTest...");
+
+      test.testEvictsLeastRecentlyUsed();
+      System.out.println("✓ testEvictsLeastRecentlyUsed passed");
+
+      test.testConcurrentLoadsShareOneValue();
+      System.out.println("✓ testConcurrentLoadsShareOneValue passed");
+
+      try {
+        test.testRejectsEmptyCapacity();
+        System.err.println("✗ testRejectsEmptyCapacity failed (did not throw exception)");
+      } catch (IllegalArgumentException e) {
+        System.out.println("✓ testRejectsEmptyCapacity passed");
+      }
+
+      System.out.println("All BoundedCache tests passed successfully!");
+    } catch (Exception e) {
+      System.err.println("Test failed with exception: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler;
+
+import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.RowBatch;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link RowBatch} class.
+ */
+public class RowBatchTest {
+
+  @Test
+  public void testColumnTypes() {
+    List<Row> rows = new ArrayList<>();
+
+    Row row1 = new Row();
+    row1.add("id", 1);
+    row1.add("ratio", 0.5);
+    row1.add("name", "a");
+    rows.add(row1);
+
+    Row row2 = new Row();
+    row2.add("id", 2L);
+    row2.add("ratio", 3);
+    rows.add(row2);
+
+    RowBatch batch = RowBatch.fromRows(rows);
+
+    Assert.assertEquals(2, batch.size());
+    Assert.assertEquals(3, batch.getColumnCount());
+    Assert.assertEquals(RowBatch.ColumnType.LONG, batch.getColumnType(batch.indexOf("id")));
+    Assert.assertEquals(RowBatch.ColumnType.DOUBLE, batch.getColumnType(batch.indexOf("ratio")));
+    Assert.assertEquals(RowBatch.ColumnType.STRING, batch.getColumnType(batch.indexOf("name")));
+    Assert.assertEquals(-1, batch.indexOf("missing"));
+
+    Assert.assertEquals(2L, batch.getLong(batch.indexOf("id"), 1));
+    Assert.assertEquals(3.0, batch.getDouble(batch.indexOf("ratio"), 1), 0.001);
+    Assert.assertEquals("a", batch.getString(batch.indexOf("name"), 0));
+    Assert.assertTrue(batch.isNull(batch.indexOf("name"), 1));
+  }
+
+  @Test
+  public void testRoundTrip() {
+    List<Row> rows = new ArrayList<>();
+    for (int i = 0; i < 130; i++) {
+      Row row = new Row();
+      row.add("index", (long) i);
+      if (i % 2 == 0) {
+        row.add("label", "row-" + i);
+      }
+      rows.add(row);
+    }
+
+    List<Row> copy = RowBatch.fromRows(rows).toRows();
+
+    Assert.assertEquals(rows.size(), copy.size());
+    for (int i = 0; i < rows.size(); i++) {
+      Assert.assertEquals(rows.get(i).getValues(), copy.get(i).getValues());
+    }
+  }
+
+  @Test
+  public void testObjectColumns() {
+    List<Row> rows = new ArrayList<>();
+
+    Row row1 = new Row();
+    row1.add("size", "5KB");
+    row1.add("exact", new BigDecimal("0.1"));
+    row1.add("tags", Arrays.asList("a", "b"));
+    rows.add(row1);
+
+    Row row2 = new Row();
+    row2.add("size", 5L);
+    row2.add("exact", new BigDecimal("12345678901234567890.5"));
+    rows.add(row2);
+
+    RowBatch batch = RowBatch.fromRows(rows);
+
+    // Values that are neither all numbers nor all strings are stored as they are, not as their text
+    Assert.assertEquals(RowBatch.ColumnType.OBJECT, batch.getColumnType(batch.indexOf("size")));
+    Assert.assertEquals(RowBatch.ColumnType.OBJECT, batch.getColumnType(batch.indexOf("exact")));
+    Assert.assertEquals(RowBatch.ColumnType.OBJECT, batch.getColumnType(batch.indexOf("tags")));
+    Assert.assertEquals(5L, batch.getValue(batch.indexOf("size"), 1));
+    Assert.assertTrue(batch.isNull(batch.indexOf("tags"), 1));
+
+    List<Row> copy = batch.toRows();
+    for (int i = 0; i < rows.size(); i++) {
+      Assert.assertEquals(rows.get(i).getValues(), copy.get(i).getValues());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBuilderRejectsShortColumn() {
+    RowBatch.builder(2).addColumn("values", new long[] {1L});
+  }
+
+  public static void main(String[] args) {
+    RowBatchTest test = new RowBatchTest();
+
+    try {
+      System.out.println("Running RowBatchTest...");
+
+      test.testColumnTypes();
+      System.out.println("✓ testColumnTypes passed");
+
+      test.testRoundTrip();
+      System.out.println("✓ testRoundTrip passed");
+
+      test.testObjectColumns();
+      System.out.println("✓ testObjectColumns passed");
+
+      try {
+        test.testBuilderRejectsShortColumn();
+        System.err.println("✗ testBuilderRejectsShortColumn failed (did not throw exception)");
+      } catch (IllegalArgumentException e) {
+        System.out.println("✓ testBuilderRejectsShortColumn passed");
+      }
+
+      System.out.println("All RowBatch tests passed successfully!");
+    } catch (Exception e) {
+      System.err.println("Test failed with exception: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+}
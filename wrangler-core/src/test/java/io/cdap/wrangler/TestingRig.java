@@ -17,9 +17,14 @@
 package io.cdap.wrangler;
 
 import io.cdap.wrangler.parser.ByteSizeTest;
+import io.cdap.wrangler.parser.FastDirectiveParserTest;
 import io.cdap.wrangler.parser.GrammarBasedParserTest;
+import io.cdap.wrangler.parser.PropertiesTokenTest;
+import io.cdap.wrangler.parser.RecipeCodecTest;
 import io.cdap.wrangler.parser.TimeDurationTest;
+import io.cdap.wrangler.parser.UsageDefinitionTest;
 import io.cdap.wrangler.steps.transformation.AggregateStatsTest;
+import io.cdap.wrangler.steps.transformation.FormatReadableTest;
 
 /**
  * Main test runner that executes all test cases.
@@ -37,6 +42,16 @@ public class TestingRig {
     System.out.println("==================================================");
     TimeDurationTest.main(args);
     
+    System.out.println("\n==================================================");
+    System.out.println("Starting RowBatch tests");
+    System.out.println("==================================================");
+    RowBatchTest.main(args);
+    
+    System.out.println("\n==================================================");
+    System.out.println("Starting BoundedCache tests");
+    System.out.println("==================================================");
+    BoundedCacheTest.main(args);
+    
     System.out.println("\n==================================================");
     System.out.println("Starting GrammarBasedParser tests");
     System.out.println("==================================================");
@@ -47,6 +62,31 @@ public class TestingRig {
       e.printStackTrace();
     }
     
+    System.out.println("\n==================================================");
+    System.out.println("Starting FastDirectiveParser tests");
+    System.out.println("==================================================");
+    try {
+      FastDirectiveParserTest.main(args);
+    } catch (Exception e) {
+      System.out.println("FastDirectiveParser tests failed: " + e.getMessage());
+      e.printStackTrace();
+    }
+    
+    System.out.println("\n==================================================");
+    System.out.println("Starting RecipeCodec tests");
+    System.out.println("==================================================");
+    RecipeCodecTest.main(args);
+    
+    System.out.println("\n==================================================");
+    System.out.println("Starting UsageDefinition tests");
+    System.out.println("==================================================");
+    UsageDefinitionTest.main(args);
+    
+    System.out.println("\n==================================================");
+    System.out.println("Starting PropertiesToken tests");
+    System.out.println("==================================================");
+    PropertiesTokenTest.main(args);
+    
     System.out.println("\n==================================================");
     System.out.println("Starting AggregateStats tests");
     System.out.println("==================================================");
@@ -57,6 +97,11 @@ public class TestingRig {
       e.printStackTrace();
     }
     
+    System.out.println("\n==================================================");
+    System.out.println("Starting FormatReadable tests");
+    System.out.println("==================================================");
+    FormatReadableTest.main(args);
+    
     System.out.println("\n==================================================");
     System.out.println("All tests completed!");
     System.out.println("==================================================");
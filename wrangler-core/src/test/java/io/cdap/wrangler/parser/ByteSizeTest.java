@@ -17,11 +17,15 @@
 package io.cdap.wrangler.parser;
 
 import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.SizeUnit;
 import io.cdap.wrangler.api.parser.SyntaxError;
 import io.cdap.wrangler.api.parser.TokenType;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Tests for {@link ByteSize} class.
  */
@@ -88,6 +92,140 @@ public class ByteSizeTest {
     Assert.assertEquals(noSpace.value(), withSpace.value(), 0.001);
   }
   
+  @Test
+  public void testExactBytes() throws SyntaxError {
+    // 8PB + 1B is beyond the integers a double holds exactly
+    ByteSize large = new ByteSize("9007199254740993B");
+    Assert.assertEquals(9007199254740993L, large.toBytes());
+    Assert.assertEquals(1536L, new ByteSize("1.5KB").toBytes());
+    Assert.assertEquals(1024L * 1024 * 1024 * 1024 * 1024 * 3, new ByteSize("3PB").toBytes());
+    
+    // Sizes beyond a long saturate instead of wrapping around
+    Assert.assertEquals(Long.MAX_VALUE, new ByteSize("9000000PB").toBytes());
+    Assert.assertEquals(Long.MAX_VALUE, new ByteSize("12345678901234567890B").toBytes());
+    
+    // Sizes built from a number are never parsed, and print without an exponent
+    ByteSize fromLong = ByteSize.ofBytes(15728640L);
+    Assert.assertEquals(15728640L, fromLong.toBytes());
+    Assert.assertEquals(15.0, fromLong.convertTo("MB"), 0.001);
+    Assert.assertEquals("15728640B", fromLong.toString());
+    Assert.assertEquals(fromLong, new ByteSize(fromLong.raw()));
+    Assert.assertEquals("0.5B", ByteSize.ofBytes(0.5).toString());
+    Assert.assertEquals(1L, ByteSize.ofBytes(0.5).toBytes());
+  }
+  
+  @Test
+  public void testParseBytes() throws SyntaxError {
+    // The scanner gives exactly what parsing the number as a double and scaling it gives
+    Assert.assertEquals(Double.parseDouble("2.5") * 1024 * 1024, ByteSize.parseBytes("2.5MB"), 0.0);
+    Assert.assertEquals(Double.parseDouble("0.1") * 1024, ByteSize.parseBytes("0.1KB"), 0.0);
+    Assert.assertEquals(Double.parseDouble("123456789012345678901.25"),
+                        ByteSize.parseBytes("123456789012345678901.25B"), 0.0);
+    Assert.assertEquals(10.0 * 1024 * 1024, ByteSize.parseBytes(" 10\tmb "), 0.0);
+    Assert.assertEquals(new ByteSize("7.75 Tb").value(), ByteSize.parseBytes(new StringBuilder("7.75 Tb")), 0.0);
+    
+    // The exact parser gives the whole bytes of the token, also where the double is rounded
+    Assert.assertEquals(9007199254740993L, ByteSize.parseExactBytes("9007199254740993B"));
+    Assert.assertEquals(1536L, ByteSize.parseExactBytes("1.5KB"));
+    Assert.assertEquals(new ByteSize("0.5B").toBytes(), ByteSize.parseExactBytes("0.5B"));
+    
+    // Anything the old pattern rejected is still rejected
+    String[] invalid = {"", "  ", "B", "1.", ".5KB", "1e3B", "10KBB", "10KB x", "10 ZB", "-1B", "10K"};
+    for (String value : invalid) {
+      try {
+        ByteSize.parseBytes(value);
+        Assert.fail("Expected '" + value + "' to be rejected");
+      } catch (SyntaxError e) {
+        Assert.assertTrue(e.getMessage().contains("Invalid byte size format"));
+      }
+    }
+  }
+  
+  @Test
+  public void testParseBytesFromBuffers() throws SyntaxError {
+    byte[] line = "size=2.5MB;next".getBytes(StandardCharsets.UTF_8);
+    Assert.assertEquals(2.5 * 1024 * 1024, ByteSize.parseBytes(line, 5, 5), 0.0);
+    
+    ByteBuffer direct = ByteBuffer.allocateDirect(line.length);
+    direct.put(line).position(5).limit(10);
+    Assert.assertEquals(2.5 * 1024 * 1024, ByteSize.parseBytes(direct), 0.0);
+    // The buffer is read in place, so its position is left alone
+    Assert.assertEquals(5, direct.position());
+    
+    try {
+      ByteSize.parseBytes("10µB".getBytes(StandardCharsets.UTF_8), 0, 5);
+      Assert.fail("Expected a non-ASCII byte to be rejected");
+    } catch (SyntaxError e) {
+      Assert.assertTrue(e.getMessage().contains("'10µB'"));
+    }
+  }
+  
+  @Test
+  public void testFormatBytes() throws Exception {
+    StringBuilder out = new StringBuilder();
+    double[] values = {0, 1, 1023, 1024, 1536, 1048575.99, 2.5 * (1L << 30), 10.125 * (1L << 20), -2048};
+    String[] expected = {"0B", "1B", "1023B", "1KB", "1.5KB", "1MB", "2.5GB", "10.13MB", "-2KB"};
+    for (int i = 0; i < values.length; i++) {
+      out.setLength(0);
+      ByteSize.formatBytes(values[i], out);
+      Assert.assertEquals(expected[i], out.toString());
+    }
+    
+    // A parsed size is written in its best unit, not the unit it was written in
+    out.setLength(0);
+    new ByteSize("2048KB").formatTo(out);
+    Assert.assertEquals("2MB", out.toString());
+    
+    Appendable appendable = new StringBuilder("size=");
+    ByteSize.of("0.5MB").formatTo(appendable);
+    Assert.assertEquals("size=512KB", appendable.toString());
+  }
+  
+  @Test
+  public void testSizeUnits() throws SyntaxError {
+    ByteSize size = new ByteSize("3mb");
+    Assert.assertEquals(SizeUnit.MB, size.getSizeUnit());
+    Assert.assertEquals(3072.0, size.convertTo(SizeUnit.KB), 0.0);
+    Assert.assertEquals(size.convertTo("gb"), size.convertTo(SizeUnit.GB), 0.0);
+    
+    Assert.assertEquals(SizeUnit.TB, SizeUnit.parse("tB"));
+    Assert.assertEquals(1L << 40, SizeUnit.TB.toBytes());
+    Assert.assertEquals(2048.0, SizeUnit.MB.convert(2.0, SizeUnit.KB), 0.0);
+    Assert.assertEquals(0.5, SizeUnit.KB.convert(512.0, SizeUnit.MB), 0.0);
+    try {
+      SizeUnit.parse("ZB");
+      Assert.fail("Expected ZB to be rejected");
+    } catch (SyntaxError e) {
+      Assert.assertTrue(e.getMessage().contains("ZB"));
+    }
+  }
+  
+  @Test
+  public void testCachedInstances() throws SyntaxError {
+    long hits = ByteSize.getCacheHits();
+    long misses = ByteSize.getCacheMisses();
+    
+    // Repeated texts share one instance, whose text is the token text rather than a copy
+    ByteSize first = ByteSize.of("17KB");
+    ByteSize second = ByteSize.of("17KB");
+    Assert.assertSame(first, second);
+    Assert.assertEquals(17408.0, second.value(), 0.0);
+    Assert.assertEquals("17KB", second.raw());
+    Assert.assertEquals("17KB", second.getOriginalValue());
+    Assert.assertTrue(ByteSize.getCacheHits() > hits);
+    Assert.assertTrue(ByteSize.getCacheMisses() > misses);
+    
+    // Invalid texts are not cached, and fail every time
+    for (int i = 0; i < 2; i++) {
+      try {
+        ByteSize.of("17ZB");
+        Assert.fail("Expected 17ZB to be rejected");
+      } catch (SyntaxError e) {
+        Assert.assertTrue(e.getMessage().contains("17ZB"));
+      }
+    }
+  }
+  
   @Test(expected = SyntaxError.class)
   public void testInvalidFormat() throws SyntaxError {
     new ByteSize("MB10"); // Unit before number is invalid
@@ -124,6 +262,24 @@ public class ByteSizeTest {
       test.testWhitespaceHandling();
       System.out.println("✓ testWhitespaceHandling passed");
       
+      test.testExactBytes();
+      System.out.println("✓ testExactBytes passed");
+      
+      test.testParseBytes();
+      System.out.println("✓ testParseBytes passed");
+      
+      test.testParseBytesFromBuffers();
+      System.out.println("✓ testParseBytesFromBuffers passed");
+      
+      test.testFormatBytes();
+      System.out.println("✓ testFormatBytes passed");
+      
+      test.testSizeUnits();
+      System.out.println("✓ testSizeUnits passed");
+      
+      test.testCachedInstances();
+      System.out.println("✓ testCachedInstances passed");
+      
       try {
         test.testInvalidFormat();
         System.err.println("✗ testInvalidFormat failed (did not throw exception)");
@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.parser.SyntaxError;
+import io.cdap.wrangler.api.parser.TokenGroup;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for {@link FastDirectiveParser} class, checking it against the grammar.
+ */
+public class FastDirectiveParserTest {
+  private static final String[] DIRECTIVES = {
+    "aggregate-stats :size :time 'out' \"say \\\"hi\\\"\" 42 -1.5 2e3 {a=1,b={c=2}} 5KB 1.5s",
+    "aggregate-stats :size :time 2.5 MB 250μs",
+    "aggregate-stats",
+    "  format-readable\t:size 'size'  # trailing comment",
+    "format-readable :time 'time' 'ms'",
+    "set-option 10ms 10 ms 3m 4h 5d 6ns 7s 1b 2kb 3Mb 4GB 5tb 6PB",
+    "numbers 0 -0 .5 -.5 1. 1.e5 1E-3 -2e+4 007 'x'",
+    "strings '' \"\" 'a\\\\b' \"it's\" 'say \"hi\"'",
+    "props {} {{}} {a={b={c}}} {x=1;y=2}",
+    "size 1 KB 2\tGB",
+    "flags true false :true :false truth falsey",
+    "words s3 h2 d1 m4 b2 B5 KB ms msg ns1x"
+  };
+
+  private static final String[] INVALID = {
+    "",
+    "  # only a comment",
+    ":size",
+    "42 aggregate-stats",
+    "aggregate-stats :",
+    "aggregate-stats 'unterminated",
+    "aggregate-stats 'bad \\n escape'",
+    "aggregate-stats {unbalanced",
+    "aggregate-stats 99999999999999999999",
+    "aggregate-stats - 5",
+    "aggregate-stats @",
+    "aggregate-stats ;",
+    "true :x",
+    "size KB5",
+    "time ms10 us3 μs3 gb1"
+  };
+
+  // Fragments the random directives are assembled from, valid and invalid alike
+  private static final String[] FRAGMENTS = {
+    "a", "set-column", "_x", ":", ":col", " ", "  ", "\t", "\n", "\r\n", ";", "#c\n", "'", "\"", "'s'",
+    "\"d\"", "\\", "{", "}", "{k=v}", "0", "-", ".", "1", "25", "e", "E", "+", "5KB", "k", "B", "b", "M",
+    "ms", "m", "s", "n", "μ", "μs", "h", "d", "true", "false", "@", "=", ","
+  };
+
+  @Test
+  public void testAcceptsCommonDirectives() {
+    for (String directive : DIRECTIVES) {
+      Assert.assertNotNull(directive, FastDirectiveParser.parse(directive));
+    }
+    Assert.assertNotNull(FastDirectiveParser.parseRecipe(String.join("\n", DIRECTIVES)));
+    Assert.assertNotNull(FastDirectiveParser.parseRecipe(""));
+  }
+
+  @Test
+  public void testAgreesWithGrammar() {
+    for (String directive : DIRECTIVES) {
+      assertAgrees(directive);
+      assertRecipeAgrees(directive);
+    }
+    for (String directive : INVALID) {
+      Assert.assertNull(directive, FastDirectiveParser.parse(directive));
+      assertAgrees(directive);
+      assertRecipeAgrees(directive);
+    }
+    // Line breaks only end a directive in a recipe
+    Assert.assertNotNull(FastDirectiveParser.parse("split\n:col\n'sep'"));
+    assertAgrees("split\n:col\n'sep'");
+    Assert.assertNull(FastDirectiveParser.parseRecipe("split\n:col\n'sep'"));
+    assertRecipeAgrees("split\n:col\n'sep'");
+    assertRecipeAgrees(String.join(";", DIRECTIVES));
+    assertRecipeAgrees(String.join("\r\n\r\n", DIRECTIVES));
+  }
+
+  @Test
+  public void testAgreesWithGrammarOnRandomInput() {
+    Random random = new Random(42);
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 3000; i++) {
+      text.setLength(0);
+      text.append(random.nextBoolean() ? "directive " : "");
+      int fragments = random.nextInt(8);
+      for (int j = 0; j < fragments; j++) {
+        text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+      }
+      assertAgrees(text.toString());
+      assertRecipeAgrees(text.toString());
+    }
+  }
+
+  @Test
+  public void testParserUsesFastPathFirst() throws SyntaxError {
+    // The fast path gives up on this one, so the grammar reports the error with its position
+    try {
+      new GrammarBasedParser().parse("aggregate-stats :size @");
+      Assert.fail("Expected a syntax error");
+    } catch (SyntaxError e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("line 1:22"));
+    }
+    
+    List<TokenGroup> directives = new GrammarBasedParser().parseRecipe("a :b 1KB; c 'd'\ne 2.5");
+    Assert.assertEquals(3, directives.size());
+    Assert.assertTrue(directives.get(0).isImmutable());
+    Assert.assertEquals("e", directives.get(2).get(0).value());
+  }
+
+  /**
+   * Checks that a directive the fast path parses gives the tokens the grammar gives, and that the fast path
+   * gives up on every directive the grammar rejects.
+   */
+  private static void assertAgrees(String directive) {
+    TokenGroup fast = FastDirectiveParser.parse(directive);
+    TokenGroup grammar;
+    try {
+      GrammarBasedParser.clearCache();
+      grammar = new GrammarBasedParser(GrammarBasedParser.Mode.GRAMMAR).parse(directive);
+    } catch (SyntaxError e) {
+      Assert.assertNull(directive, fast);
+      return;
+    }
+    if (fast != null) {
+      assertSameTokens(directive, grammar, fast);
+    }
+  }
+
+  private static void assertRecipeAgrees(String recipe) {
+    List<TokenGroup> fast = FastDirectiveParser.parseRecipe(recipe);
+    List<TokenGroup> grammar;
+    try {
+      grammar = new GrammarBasedParser(GrammarBasedParser.Mode.GRAMMAR).parseRecipe(recipe);
+    } catch (SyntaxError e) {
+      Assert.assertNull(recipe, fast);
+      return;
+    }
+    if (fast != null) {
+      Assert.assertEquals(recipe, grammar.size(), fast.size());
+      for (int i = 0; i < grammar.size(); i++) {
+        assertSameTokens(recipe, grammar.get(i), fast.get(i));
+      }
+    }
+  }
+
+  private static void assertSameTokens(String text, TokenGroup expected, TokenGroup actual) {
+    Assert.assertEquals(text, expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertEquals(text, expected.get(i).type(), actual.get(i).type());
+      Assert.assertEquals(text, expected.get(i).value(), actual.get(i).value());
+    }
+  }
+
+  public static void main(String[] args) {
+    FastDirectiveParserTest test = new FastDirectiveParserTest();
+
+    try {
+      System.out.println("Running FastDirectiveParserTest...");
+
+      test.testAcceptsCommonDirectives();
+      System.out.println("✓ testAcceptsCommonDirectives passed");
+
+      test.testAgreesWithGrammar();
+      System.out.println("✓ testAgreesWithGrammar passed");
+
+      test.testAgreesWithGrammarOnRandomInput();
+      System.out.println("✓ testAgreesWithGrammarOnRandomInput passed");
+
+      test.testParserUsesFastPathFirst();
+      System.out.println("✓ testParserUsesFastPathFirst passed");
+
+      System.out.println("All FastDirectiveParser tests passed successfully!");
+    } catch (Exception e) {
+      System.err.println("Test failed with exception: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+}
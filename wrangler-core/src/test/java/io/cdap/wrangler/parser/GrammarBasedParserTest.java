@@ -25,6 +25,13 @@ import io.cdap.wrangler.api.parser.TokenType;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 /**
  * Tests for {@link GrammarBasedParser} class.
  */
@@ -109,6 +116,187 @@ public class GrammarBasedParserTest {
     Assert.assertEquals(1.0, timeDuration.convertTo("m"), 0.001);
   }
   
+  @Test
+  public void testWarmUp() throws SyntaxError {
+    long misses = GrammarBasedParser.getCacheMisses();
+    // The built-in corpus ends with a directive that does not parse, to warm up error reporting too
+    Assert.assertTrue(GrammarBasedParser.warmUp() > 0);
+    Assert.assertEquals(1, GrammarBasedParser.warmUp(Arrays.asList("format-readable :size 'size'", "@", null)));
+    Assert.assertEquals(misses, GrammarBasedParser.getCacheMisses());
+  }
+  
+  @Test
+  public void testParseCache() throws SyntaxError {
+    String directive = "aggregate-stats :cached_size :cached_time 512KB 250ms";
+    long hits = GrammarBasedParser.getCacheHits();
+    long misses = GrammarBasedParser.getCacheMisses();
+    
+    // Separate parsers share the cache, so the second parse returns the first group
+    TokenGroup first = new GrammarBasedParser().parse(directive);
+    TokenGroup second = new GrammarBasedParser().parse(directive);
+    Assert.assertSame(first, second);
+    Assert.assertEquals(misses + 1, GrammarBasedParser.getCacheMisses());
+    Assert.assertEquals(hits + 1, GrammarBasedParser.getCacheHits());
+    
+    // Shared groups cannot be changed by one of their users
+    Assert.assertTrue(first.isImmutable());
+    try {
+      first.add(new ByteSize("1KB"));
+      Assert.fail("Expected a cached group to be immutable");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    
+    GrammarBasedParser.clearCache();
+    Assert.assertNotSame(first, new GrammarBasedParser().parse(directive));
+  }
+  
+  @Test
+  public void testConcurrentParsing() throws Exception {
+    GrammarBasedParser parser = new GrammarBasedParser();
+    int threads = 8;
+    int directives = 200;
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        // Every directive text is distinct, so each one goes through the grammar
+        results.add(pool.submit(() -> {
+          for (int i = 0; i < directives; i++) {
+            // Sizes other tests use are avoided, since those tests count byte size cache misses
+            int kilobytes = 100_000 + thread * directives + i;
+            TokenGroup tokens = parser.parse("aggregate-stats :size_" + kilobytes + " :time " + kilobytes + "KB 10ms");
+            Assert.assertEquals("size_" + kilobytes, tokens.get(1).value());
+            Assert.assertEquals(kilobytes * 1024.0, ((ByteSize) tokens.get(3)).value(), 0.0);
+          }
+          return null;
+        }));
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+  
+  @Test
+  public void testTreeAndEmittedTokensAgree() throws SyntaxError {
+    String[] directives = {
+      "aggregate-stats :size :time 'out' \"say \\\"hi\\\"\" 42 -1.5 2e3 {a=1,b={c=2}} 5KB 1.5s",
+      "aggregate-stats :size :time 2.5 MB 250μs",
+      "aggregate-stats"
+    };
+    for (String directive : directives) {
+      // Each mode has to parse for itself, so the cache is cleared before both parses
+      GrammarBasedParser.clearCache();
+      TokenGroup emitted = new GrammarBasedParser(GrammarBasedParser.Mode.GRAMMAR).parse(directive);
+      GrammarBasedParser.clearCache();
+      TokenGroup walked = new GrammarBasedParser(GrammarBasedParser.Mode.PARSE_TREE).parse(directive);
+      
+      Assert.assertEquals(directive, walked.size(), emitted.size());
+      for (int i = 0; i < walked.size(); i++) {
+        Assert.assertEquals(directive, walked.get(i).type(), emitted.get(i).type());
+        Assert.assertEquals(directive, walked.get(i).value(), emitted.get(i).value());
+      }
+    }
+  }
+  
+  @Test
+  public void testParseRecipe() throws SyntaxError {
+    String recipe = "# sizes first\n"
+      + "format-readable :size 'size'; format-readable :time 'time' 'ms'\n"
+      + "\n"
+      + "aggregate-stats :size :time 'total_size' 'total_time' {a=1;\nb=2} ;;\n"
+      + "  aggregate-stats :size :time 5KB 1.5s";
+    List<TokenGroup> directives = new GrammarBasedParser().parseRecipe(recipe);
+    
+    Assert.assertEquals(4, directives.size());
+    Assert.assertEquals("format-readable", directives.get(0).get(0).value());
+    Assert.assertEquals(3, directives.get(0).size());
+    Assert.assertEquals("ms", directives.get(1).get(3).value());
+    Assert.assertEquals(TokenType.PROPERTIES, directives.get(2).get(5).type());
+    Assert.assertEquals(5 * 1024.0, directives.get(3).get(3).value());
+    Assert.assertTrue(directives.get(3).isImmutable());
+    
+    // Errors are reported at their line in the recipe
+    try {
+      new GrammarBasedParser().parseRecipe("format-readable :size 'size'\nformat-readable :time @");
+      Assert.fail("Expected the recipe to be rejected");
+    } catch (SyntaxError e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("line 2:22"));
+    }
+  }
+  
+  @Test
+  public void testParallelRecipe() throws SyntaxError {
+    StringBuilder recipe = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      recipe.append("aggregate-stats :size_").append(i).append(" :time 'a;b' {x=1;\ny=2} ")
+        .append(i + 1).append("KB 10ms").append(i % 2 == 0 ? "\n" : "; ");
+    }
+    
+    GrammarBasedParser parser = new GrammarBasedParser();
+    List<TokenGroup> sequential = parser.parseRecipe(recipe.toString());
+    List<TokenGroup> parallel = parser.parseRecipe(recipe.toString(), true);
+    Assert.assertEquals(5000, parallel.size());
+    for (int i = 0; i < sequential.size(); i++) {
+      Assert.assertEquals("size_" + i, parallel.get(i).get(1).value());
+      for (int t = 0; t < sequential.get(i).size(); t++) {
+        Assert.assertEquals(sequential.get(i).get(t).value(), parallel.get(i).get(t).value());
+      }
+    }
+    
+    // An error near the end is still reported at its position in the whole recipe
+    recipe.append("aggregate-stats :size :time @");
+    try {
+      parser.parseRecipe(recipe.toString(), true);
+      Assert.fail("Expected the recipe to be rejected");
+    } catch (SyntaxError e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("line 7501:46"));
+    }
+  }
+  
+  @Test
+  public void testNumberAtEndOfLine() throws SyntaxError {
+    // A number ending a line never takes the first letter of the next directive as its unit
+    String lines = "format-readable :time 'time' 'ms' 42\ndrop :x\nformat-readable :size 'size' 7\nset-column :y 1\n"
+      + "format-readable :size 'size' 8\nbytes :z\n";
+    for (GrammarBasedParser.Mode mode : GrammarBasedParser.Mode.values()) {
+      List<TokenGroup> directives = new GrammarBasedParser(mode).parseRecipe(lines);
+      Assert.assertEquals(mode.name(), 6, directives.size());
+      Assert.assertEquals(42, directives.get(0).get(4).value());
+      Assert.assertEquals("drop", directives.get(1).get(0).value());
+      Assert.assertEquals("set-column", directives.get(3).get(0).value());
+      Assert.assertEquals("bytes", directives.get(5).get(0).value());
+    }
+    
+    // The parallel split cuts at the same newlines, so it gives the same directives
+    StringBuilder recipe = new StringBuilder();
+    while (recipe.length() <= 128 * 1024) {
+      recipe.append(lines);
+    }
+    GrammarBasedParser parser = new GrammarBasedParser();
+    Assert.assertEquals(parser.parseRecipe(recipe.toString()).size(),
+                        parser.parseRecipe(recipe.toString(), true).size());
+  }
+  
+  @Test
+  public void testReportsErrorPosition() {
+    // The first error is reported with its position, instead of being printed and recovered from
+    String[] invalid = {"aggregate-stats :size 5KB @", "aggregate-stats : 5KB", "aggregate-stats :size {a"};
+    String[] positions = {"line 1:26", "line 1:18", "line 1:22"};
+    for (int i = 0; i < invalid.length; i++) {
+      try {
+        new GrammarBasedParser().parse(invalid[i]);
+        Assert.fail("Expected '" + invalid[i] + "' to be rejected");
+      } catch (SyntaxError e) {
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains(positions[i]));
+      }
+    }
+  }
+  
   @Test(expected = SyntaxError.class)
   public void testInvalidByteSizeFormat() throws SyntaxError {
     GrammarBasedParser parser = new GrammarBasedParser();
@@ -123,12 +311,38 @@ public class GrammarBasedParserTest {
     parser.parse(directive);
   }
   
+  @Test
+  public void testUnitFirstWords() throws SyntaxError {
+    for (GrammarBasedParser.Mode mode : GrammarBasedParser.Mode.values()) {
+      GrammarBasedParser parser = new GrammarBasedParser(mode);
+      
+      // Single-letter units followed by digits are ordinary words
+      for (String word : new String[] {"s3", "h2", "d1", "m4", "b2"}) {
+        TokenGroup tokens = parser.parse("set-option " + word);
+        Assert.assertEquals(mode + " " + word, word, tokens.get(1).value());
+      }
+      
+      // Multi-letter units followed by digits are misplaced units
+      for (String word : new String[] {"KB5", "ms10", "us3", "GB1"}) {
+        try {
+          parser.parse("set-option " + word);
+          Assert.fail(mode + " accepted " + word);
+        } catch (SyntaxError e) {
+          Assert.assertTrue(e.getMessage(), e.getMessage().contains(word));
+        }
+      }
+    }
+  }
+  
   public static void main(String[] args) {
     GrammarBasedParserTest test = new GrammarBasedParserTest();
     
     try {
       System.out.println("Running GrammarBasedParserTest...");
       
+      test.testUnitFirstWords();
+      System.out.println("✓ testUnitFirstWords passed");
+      
       test.testParseDirectiveWithByteSize();
       System.out.println("✓ testParseDirectiveWithByteSize passed");
       
@@ -138,6 +352,30 @@ public class GrammarBasedParserTest {
       test.testUnitConversion();
       System.out.println("✓ testUnitConversion passed");
       
+      test.testWarmUp();
+      System.out.println("✓ testWarmUp passed");
+      
+      test.testParseCache();
+      System.out.println("✓ testParseCache passed");
+      
+      test.testConcurrentParsing();
+      System.out.println("✓ testConcurrentParsing passed");
+      
+      test.testTreeAndEmittedTokensAgree();
+      System.out.println("✓ testTreeAndEmittedTokensAgree passed");
+      
+      test.testParseRecipe();
+      System.out.println("✓ testParseRecipe passed");
+      
+      test.testNumberAtEndOfLine();
+      System.out.println("✓ testNumberAtEndOfLine passed");
+      
+      test.testParallelRecipe();
+      System.out.println("✓ testParallelRecipe passed");
+      
+      test.testReportsErrorPosition();
+      System.out.println("✓ testReportsErrorPosition passed");
+      
       try {
         test.testInvalidByteSizeFormat();
         System.err.println("✗ testInvalidByteSizeFormat failed (did not throw exception)");
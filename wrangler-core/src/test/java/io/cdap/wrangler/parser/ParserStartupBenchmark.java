@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.parser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class <code>ParserStartupBenchmark</code> measures the time to the first parse of a directive in a
+ * fresh JVM: with the grammar, cold or after a warm-up, and with the default fast path. Every run starts a
+ * new JVM with the current class path, since class loading and the ANTLR caches only start cold once per
+ * process. It is not a unit test, so surefire skips it; compile it with <code>mvn test-compile</code> and run
+ * it from the <code>wrangler-core</code> directory, with the ANTLR runtime from the local Maven repository:
+ *
+ * <pre>
+ * ANTLR=$HOME/.m2/repository/org/antlr/antlr4-runtime/4.9.3/antlr4-runtime-4.9.3.jar
+ * java -cp target/classes:target/test-classes:../wrangler-api/target/classes:$ANTLR \
+ *   io.cdap.wrangler.parser.ParserStartupBenchmark [runs]
+ * </pre>
+ */
+public class ParserStartupBenchmark {
+  private static final String DIRECTIVE =
+    "aggregate-stats :data_size :response_time 'total_size' 'total_time' 'GB' 'h'";
+  private static final String SECOND_DIRECTIVE = "format-readable :size 'size' 'MB'";
+  private static final List<String> MODES = Arrays.asList("cold", "warm", "fast");
+
+  public static void main(String[] args) throws Exception {
+    if (args.length > 0 && MODES.contains(args[0])) {
+      measure(args[0]);
+      return;
+    }
+    
+    int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+    for (String mode : MODES) {
+      for (int i = 0; i < runs; i++) {
+        System.out.println(mode + " run " + (i + 1) + ": " + fork(mode));
+      }
+    }
+  }
+
+  /**
+   * Runs the measurement in this JVM, which must not have parsed anything yet.
+   *
+   * @param mode <code>cold</code> or <code>warm</code> to parse with the grammar, without or after a warm-up,
+   *   or <code>fast</code> to parse with the fast path
+   */
+  private static void measure(String mode) throws Exception {
+    long start = System.nanoTime();
+    if ("warm".equals(mode)) {
+      GrammarBasedParser.warmUp();
+    }
+    long warmed = System.nanoTime();
+    GrammarBasedParser parser = "fast".equals(mode)
+      ? new GrammarBasedParser(GrammarBasedParser.Mode.FAST_PATH)
+      : new GrammarBasedParser(GrammarBasedParser.Mode.GRAMMAR);
+    parser.parse(DIRECTIVE);
+    long first = System.nanoTime();
+    parser.parse(SECOND_DIRECTIVE);
+    long second = System.nanoTime();
+    
+    System.out.printf("warm-up %.2f ms, first parse %.2f ms, second parse %.3f ms%n",
+                      (warmed - start) / 1e6, (first - warmed) / 1e6, (second - first) / 1e6);
+  }
+
+  /**
+   * Runs the measurement in a new JVM.
+   *
+   * @param mode the measurement to run
+   * @return the line the new JVM printed
+   */
+  private static String fork(String mode) throws IOException, InterruptedException {
+    String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                                         ParserStartupBenchmark.class.getName(), mode)
+      .redirectErrorStream(true)
+      .start();
+    StringBuilder output = new StringBuilder();
+    try (BufferedReader reader = new BufferedReader(
+      new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        output.append(line);
+      }
+    }
+    process.waitFor();
+    return output.toString();
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.parser.PropertiesToken;
+import io.cdap.wrangler.api.parser.SyntaxError;
+import io.cdap.wrangler.api.parser.TokenGroup;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Tests for {@link PropertiesToken} class.
+ */
+public class PropertiesTokenTest {
+
+  @Test
+  public void testParsesEntries() {
+    PropertiesToken token = new PropertiesToken(
+      "{ quantiles = true, window=5 m; label='a, b; c=d', nested={x=1,y={z=2}}, flag, empty= }");
+    Map<String, String> properties = token.getProperties();
+    
+    Assert.assertEquals(Arrays.asList("quantiles", "window", "label", "nested", "flag", "empty"),
+                        new ArrayList<>(properties.keySet()));
+    Assert.assertEquals("a, b; c=d", token.getString("label"));
+    Assert.assertEquals("", token.getString("flag"));
+    Assert.assertEquals("", token.getString("empty"));
+    Assert.assertEquals("fallback", token.getString("missing", "fallback"));
+    Assert.assertEquals("{x=1,y={z=2}}", token.getString("nested"));
+    Assert.assertEquals(2, token.getProperties("nested").getProperties("y").getInt("z", 0));
+    Assert.assertTrue(token.has("quantiles"));
+    Assert.assertFalse(token.has("missing"));
+    
+    // The raw text is unchanged
+    Assert.assertTrue(token.value().startsWith("{ quantiles"));
+  }
+
+  @Test
+  public void testTypedGetters() throws SyntaxError {
+    PropertiesToken token = new PropertiesToken("{count=42, big=9000000000, ratio=0.25, on=TRUE, limit=1.5GB, "
+                                                  + "window=5 m}");
+    Assert.assertEquals(42, token.getInt("count", 0));
+    Assert.assertEquals(9_000_000_000L, token.getLong("big", 0));
+    Assert.assertEquals(0.25, token.getDouble("ratio", 0), 0.0);
+    Assert.assertTrue(token.getBoolean("on", false));
+    Assert.assertEquals(7, token.getInt("missing", 7));
+    Assert.assertEquals((long) (1.5 * 1024 * 1024 * 1024), token.getByteSize("limit").toBytes());
+    Assert.assertEquals(300_000_000_000L, token.getTimeDuration("window").toNanos());
+    Assert.assertNull(token.getByteSize("missing"));
+  }
+
+  @Test
+  public void testParsesOnceAndIsImmutable() {
+    PropertiesToken token = new PropertiesToken("{a=1}");
+    Map<String, String> properties = token.getProperties();
+    Assert.assertSame(properties, token.getProperties());
+    try {
+      properties.put("b", "2");
+      Assert.fail("Expected the entries to be immutable");
+    } catch (UnsupportedOperationException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testParsedDirective() throws SyntaxError {
+    TokenGroup tokens = new GrammarBasedParser().parse("aggregate-stats :size :time {quantiles=true; max=10KB}");
+    PropertiesToken token = (PropertiesToken) tokens.get(3);
+    Assert.assertTrue(token.getBoolean("quantiles", false));
+    Assert.assertEquals(10 * 1024L, token.getByteSize("max").toBytes());
+  }
+
+  public static void main(String[] args) {
+    PropertiesTokenTest test = new PropertiesTokenTest();
+
+    try {
+      System.out.println("Running PropertiesTokenTest...");
+
+      test.testParsesEntries();
+      System.out.println("✓ testParsesEntries passed");
+
+      test.testTypedGetters();
+      System.out.println("✓ testTypedGetters passed");
+
+      test.testParsesOnceAndIsImmutable();
+      System.out.println("✓ testParsesOnceAndIsImmutable passed");
+
+      test.testParsedDirective();
+      System.out.println("✓ testParsedDirective passed");
+
+      System.out.println("All PropertiesToken tests passed successfully!");
+    } catch (Exception e) {
+      System.err.println("Test failed with exception: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+}
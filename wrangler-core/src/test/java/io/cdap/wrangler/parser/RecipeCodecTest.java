@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.parser.BooleanToken;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.DirectiveName;
+import io.cdap.wrangler.api.parser.RecipeCodec;
+import io.cdap.wrangler.api.parser.SyntaxError;
+import io.cdap.wrangler.api.parser.Text;
+import io.cdap.wrangler.api.parser.TimeDuration;
+import io.cdap.wrangler.api.parser.Token;
+import io.cdap.wrangler.api.parser.TokenGroup;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for {@link RecipeCodec} class.
+ */
+public class RecipeCodecTest {
+  private static final String RECIPE = "aggregate-stats :size :time 'total' \"say \\\"hi\\\"\" 42 -1.5 {a=1,b={c=2}}\n"
+    + "format-readable :size 'size' 2.5 MB 1h; format-readable :time 'time' 250μs 1.5KB";
+
+  @Test
+  public void testRoundTrip() throws SyntaxError {
+    List<TokenGroup> directives = new ArrayList<>(new GrammarBasedParser().parseRecipe(RECIPE));
+    TokenGroup extra = new TokenGroup();
+    extra.add(new DirectiveName("set-option"));
+    extra.add(new BooleanToken(true));
+    extra.add(new Text("value", "'value'"));
+    extra.add(ByteSize.ofBytes(1536.5));
+    extra.add(TimeDuration.ofNanos(90_000_000_000L));
+    directives.add(extra);
+    
+    List<TokenGroup> decoded = RecipeCodec.decode(RecipeCodec.encode(directives));
+    Assert.assertEquals(directives.size(), decoded.size());
+    for (int g = 0; g < directives.size(); g++) {
+      TokenGroup expected = directives.get(g);
+      TokenGroup actual = decoded.get(g);
+      Assert.assertTrue(actual.isImmutable());
+      Assert.assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        Token want = expected.get(i);
+        Token got = actual.get(i);
+        Assert.assertSame(want.getClass(), got.getClass());
+        Assert.assertEquals(want.type(), got.type());
+        Assert.assertEquals(want.value(), got.value());
+        Assert.assertEquals(want.raw(), got.raw());
+      }
+    }
+    
+    // Byte sizes and durations keep their exact values and units
+    ByteSize size = (ByteSize) decoded.get(1).get(3);
+    Assert.assertEquals(2.5 * 1024 * 1024, size.value(), 0.0);
+    Assert.assertEquals((long) (2.5 * 1024 * 1024), size.toBytes());
+    Assert.assertEquals("MB", size.getUnit());
+    ByteSize fraction = (ByteSize) decoded.get(3).get(3);
+    Assert.assertEquals(1537L, fraction.toBytes());
+    TimeDuration duration = (TimeDuration) decoded.get(2).get(3);
+    Assert.assertEquals(250_000L, duration.toNanos());
+    Assert.assertEquals("μs", duration.getUnit());
+    Assert.assertEquals("'value'", ((Text) decoded.get(3).get(2)).original());
+  }
+
+  @Test
+  public void testEmptyRecipe() throws SyntaxError {
+    Assert.assertTrue(RecipeCodec.decode(RecipeCodec.encode(Collections.emptyList())).isEmpty());
+  }
+
+  @Test
+  public void testRejectsDamagedData() throws SyntaxError {
+    byte[] encoded = RecipeCodec.encode(new GrammarBasedParser().parseRecipe(RECIPE));
+    
+    byte[] flipped = encoded.clone();
+    flipped[flipped.length - 3] ^= 0x10;
+    assertRejected(flipped, "checksum");
+    
+    byte[] version = encoded.clone();
+    version[5] = 99;
+    assertRejected(version, "version");
+    
+    assertRejected(Arrays.copyOf(encoded, encoded.length - 1), "expected");
+    assertRejected(Arrays.copyOf(encoded, 6), "header");
+    assertRejected("aggregate-stats :size".getBytes(), "header");
+  }
+
+  private static void assertRejected(byte[] data, String message) {
+    try {
+      RecipeCodec.decode(data);
+      Assert.fail("Expected damaged data to be rejected");
+    } catch (SyntaxError e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains(message));
+    }
+  }
+
+  public static void main(String[] args) {
+    RecipeCodecTest test = new RecipeCodecTest();
+
+    try {
+      System.out.println("Running RecipeCodecTest...");
+
+      test.testRoundTrip();
+      System.out.println("✓ testRoundTrip passed");
+
+      test.testEmptyRecipe();
+      System.out.println("✓ testEmptyRecipe passed");
+
+      test.testRejectsDamagedData();
+      System.out.println("✓ testRejectsDamagedData passed");
+
+      System.out.println("All RecipeCodec tests passed successfully!");
+    } catch (Exception e) {
+      System.err.println("Test failed with exception: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+}
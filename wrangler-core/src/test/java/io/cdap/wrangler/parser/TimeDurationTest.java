@@ -16,12 +16,16 @@
 
 package io.cdap.wrangler.parser;
 
+import io.cdap.wrangler.api.parser.DurationUnit;
 import io.cdap.wrangler.api.parser.SyntaxError;
 import io.cdap.wrangler.api.parser.TimeDuration;
 import io.cdap.wrangler.api.parser.TokenType;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Tests for {@link TimeDuration} class.
  */
@@ -95,6 +99,121 @@ public class TimeDurationTest {
     Assert.assertEquals(noSpace.value(), withSpace.value(), 0.001);
   }
   
+  @Test
+  public void testExactNanos() throws SyntaxError {
+    // 200 days in nanoseconds is beyond the integers a double holds exactly
+    Assert.assertEquals(200L * 24 * 60 * 60 * 1_000_000_000L, new TimeDuration("200d").toNanos());
+    Assert.assertEquals(9007199254740993L, new TimeDuration("9007199254740993ns").toNanos());
+    Assert.assertEquals(1_500_000L, new TimeDuration("1.5ms").toNanos());
+    
+    // Durations beyond a long saturate instead of wrapping around
+    Assert.assertEquals(Long.MAX_VALUE, new TimeDuration("200000d").toNanos());
+    
+    // Durations built from a number are never parsed, and print without an exponent
+    TimeDuration fromLong = TimeDuration.ofNanos(2_000_000_000L);
+    Assert.assertEquals(2_000_000_000L, fromLong.toNanos());
+    Assert.assertEquals(2.0, fromLong.convertTo("s"), 0.001);
+    Assert.assertEquals("2000000000ns", fromLong.toString());
+    Assert.assertEquals(fromLong, new TimeDuration(fromLong.raw()));
+  }
+  
+  @Test
+  public void testCompoundDurations() throws SyntaxError {
+    double second = 1_000_000_000.0;
+    
+    // Compound durations add up their components and report the smallest unit
+    TimeDuration compound = new TimeDuration("1h30m15s");
+    Assert.assertEquals((3600 + 1800 + 15) * second, compound.value(), 0.0);
+    Assert.assertEquals("s", compound.getUnit());
+    Assert.assertEquals(1.5 * second + 250_000, TimeDuration.parseNanos("1s 500ms 250us"), 0.0);
+    Assert.assertEquals(90_061_001_000_000L, new TimeDuration("1d1h1m1s1ms").toNanos());
+    Assert.assertEquals(90_061_001_000_000L, TimeDuration.parseExactNanos("1d1h1m1s1ms"));
+    Assert.assertEquals(9007199254740993L, TimeDuration.parseExactNanos("9007199254740993ns"));
+    
+    // us is the ASCII spelling of μs
+    TimeDuration micros = new TimeDuration("250us");
+    Assert.assertEquals(250_000.0, micros.value(), 0.0);
+    Assert.assertEquals("μs", micros.getUnit());
+    Assert.assertEquals(250.0, micros.convertTo("us"), 0.0);
+    
+    // ISO-8601 durations
+    Assert.assertEquals(5400 * second, TimeDuration.parseNanos("PT1H30M"), 0.0);
+    Assert.assertEquals(36 * 3600 * second, TimeDuration.parseNanos("P1DT12H"), 0.0);
+    Assert.assertEquals(0.5 * second, TimeDuration.parseNanos("pt0.5s"), 0.0);
+    Assert.assertEquals(1_500_000_000L, new TimeDuration("PT1.5S").toNanos());
+    
+    // Simple durations parse to the same value as before
+    Assert.assertEquals(Double.parseDouble("2.5") * 60 * second, TimeDuration.parseNanos(" 2.5 m "), 0.0);
+    Assert.assertEquals(new TimeDuration("0.1ms").value(), TimeDuration.parseNanos(new StringBuilder("0.1ms")), 0.0);
+    
+    String[] invalid = {"", "P", "PT", "P1D2H", "PT1D", "P1Y", "PT1H30", "1m1h", "1s1s", "1h 30", "5nm", "5mh",
+      "1.s", "10 sec"};
+    for (String value : invalid) {
+      try {
+        TimeDuration.parseNanos(value);
+        Assert.fail("Expected '" + value + "' to be rejected");
+      } catch (SyntaxError e) {
+        Assert.assertTrue(e.getMessage().contains("Invalid time duration format"));
+      }
+    }
+  }
+  
+  @Test
+  public void testParseNanosFromBuffers() throws SyntaxError {
+    byte[] line = "took 1h30m, ok".getBytes(StandardCharsets.UTF_8);
+    Assert.assertEquals(TimeDuration.parseNanos("1h30m"), TimeDuration.parseNanos(line, 5, 5), 0.0);
+    Assert.assertEquals(TimeDuration.parseNanos("PT2.5S"),
+                        TimeDuration.parseNanos(ByteBuffer.wrap("PT2.5S".getBytes(StandardCharsets.UTF_8))), 0.0);
+    
+    // The two bytes of μ are read as one unit character
+    ByteBuffer micros = ByteBuffer.allocateDirect(16);
+    micros.put("1ms250μs".getBytes(StandardCharsets.UTF_8)).flip();
+    Assert.assertEquals(1_250_000.0, TimeDuration.parseNanos(micros), 0.0);
+    Assert.assertEquals(0, micros.position());
+    
+    try {
+      TimeDuration.parseNanos("5μμs".getBytes(StandardCharsets.UTF_8), 0, 6);
+      Assert.fail("Expected a second μ to be rejected");
+    } catch (SyntaxError e) {
+      Assert.assertTrue(e.getMessage().contains("'5μμs'"));
+    }
+  }
+  
+  @Test
+  public void testFormatNanos() throws Exception {
+    StringBuilder out = new StringBuilder();
+    double[] values = {0, 999, 1500, 2_500_000, 1e9, 90e9, 5400e9, 129600e9, 0.004};
+    String[] expected = {"0ns", "999ns", "1.5μs", "2.5ms", "1s", "1.5m", "1.5h", "1.5d", "0ns"};
+    for (int i = 0; i < values.length; i++) {
+      out.setLength(0);
+      TimeDuration.formatNanos(values[i], out);
+      Assert.assertEquals(expected[i], out.toString());
+    }
+    
+    out.setLength(0);
+    new TimeDuration("1h30m").formatTo(out);
+    Assert.assertEquals("1.5h", out.toString());
+  }
+  
+  @Test
+  public void testDurationUnits() throws SyntaxError {
+    TimeDuration duration = new TimeDuration("1h30m");
+    Assert.assertEquals(DurationUnit.M, duration.getDurationUnit());
+    Assert.assertEquals(90.0, duration.convertTo(DurationUnit.M), 0.0);
+    Assert.assertEquals(duration.convertTo("s"), duration.convertTo(DurationUnit.S), 0.0);
+    
+    Assert.assertEquals(DurationUnit.US, DurationUnit.parse("us"));
+    Assert.assertEquals(DurationUnit.US, DurationUnit.parse("μs"));
+    Assert.assertEquals(3_600_000_000_000L, DurationUnit.H.toNanos());
+    Assert.assertEquals(1500.0, DurationUnit.S.convert(1.5, DurationUnit.MS), 0.0);
+    try {
+      DurationUnit.parse("M");
+      Assert.fail("Expected M to be rejected, since units are case-sensitive");
+    } catch (SyntaxError e) {
+      Assert.assertTrue(e.getMessage().contains("M"));
+    }
+  }
+  
   @Test(expected = SyntaxError.class)
   public void testInvalidFormat() throws SyntaxError {
     new TimeDuration("ms10"); // Unit before number is invalid
@@ -128,6 +247,21 @@ public class TimeDurationTest {
       test.testWhitespaceHandling();
       System.out.println("✓ testWhitespaceHandling passed");
       
+      test.testExactNanos();
+      System.out.println("✓ testExactNanos passed");
+      
+      test.testCompoundDurations();
+      System.out.println("✓ testCompoundDurations passed");
+      
+      test.testParseNanosFromBuffers();
+      System.out.println("✓ testParseNanosFromBuffers passed");
+      
+      test.testFormatNanos();
+      System.out.println("✓ testFormatNanos passed");
+      
+      test.testDurationUnits();
+      System.out.println("✓ testDurationUnits passed");
+      
       try {
         test.testInvalidFormat();
         System.err.println("✗ testInvalidFormat failed (did not throw exception)");
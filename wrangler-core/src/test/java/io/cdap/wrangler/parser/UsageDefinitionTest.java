@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.DirectiveParseException;
+import io.cdap.wrangler.api.Optional;
+import io.cdap.wrangler.api.parser.Arguments;
+import io.cdap.wrangler.api.parser.SyntaxError;
+import io.cdap.wrangler.api.parser.TokenType;
+import io.cdap.wrangler.api.parser.UsageDefinition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Tests for {@link UsageDefinition} class.
+ */
+public class UsageDefinitionTest {
+  private static final UsageDefinition USAGE = UsageDefinition.builder("limit-rate")
+    .define("column", TokenType.COLUMN_NAME)
+    .define("label", TokenType.TEXT, Optional.TRUE)
+    .define("size", TokenType.BYTE_SIZE)
+    .define("period", TokenType.TIME_DURATION, Optional.TRUE)
+    .define("burst", TokenType.INTEGER, Optional.TRUE)
+    .define("ratio", TokenType.FLOAT, Optional.TRUE)
+    .build();
+
+  private static Arguments bind(String directive) throws SyntaxError, DirectiveParseException {
+    return USAGE.bind(new GrammarBasedParser().parse(directive));
+  }
+
+  @Test
+  public void testBindsInDefinitionOrder() throws SyntaxError, DirectiveParseException {
+    Assert.assertEquals(Arrays.asList("column", "label", "size", "period", "burst", "ratio"),
+                        new ArrayList<>(USAGE.getArguments().keySet()));
+    Assert.assertEquals(2, USAGE.indexOf("size"));
+    Assert.assertEquals(-1, USAGE.indexOf("missing"));
+    
+    Arguments arguments = bind("limit-rate :bytes 'fast lane' 5KB 1.5s 3 0.5");
+    Assert.assertEquals("bytes", arguments.columnName("column"));
+    Assert.assertEquals("fast lane", arguments.text("label"));
+    Assert.assertEquals(TokenType.TEXT, arguments.get("label").type());
+    Assert.assertEquals(5 * 1024L, arguments.byteSize("size").toBytes());
+    Assert.assertEquals(1_500_000_000L, arguments.timeDuration("period").toNanos());
+    Assert.assertEquals(3, arguments.integer("burst", 0));
+    Assert.assertEquals(0.5, arguments.floating("ratio", 1.0), 0.0);
+    Assert.assertSame(arguments.get("size"), arguments.get(USAGE.indexOf("size")));
+  }
+
+  @Test
+  public void testSkipsAbsentOptionalArguments() throws SyntaxError, DirectiveParseException {
+    Arguments arguments = bind("limit-rate :bytes 5KB 2");
+    Assert.assertNull(arguments.text("label"));
+    Assert.assertEquals("none", arguments.text("label", "none"));
+    Assert.assertFalse(arguments.has("period"));
+    Assert.assertEquals(2, arguments.integer("burst", 0));
+    Assert.assertEquals(1.0, arguments.floating("ratio", 1.0), 0.0);
+    
+    // Binding leaves the definition untouched
+    Assert.assertNull(USAGE.value("size"));
+  }
+
+  @Test
+  public void testRejectsMismatchedDirectives() throws SyntaxError {
+    String[] invalid = {
+      "other-directive :bytes 5KB",
+      "limit-rate :bytes",
+      "limit-rate :bytes 'label' 5ms",
+      "limit-rate :bytes 5KB 1s 3 0.5 'extra'"
+    };
+    for (String directive : invalid) {
+      try {
+        bind(directive);
+        Assert.fail("Expected a bind error for " + directive);
+      } catch (DirectiveParseException e) {
+        // Expected
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTypedAccessorChecksType() throws SyntaxError, DirectiveParseException {
+    bind("limit-rate :bytes 5KB").text("size");
+  }
+
+  public static void main(String[] args) {
+    UsageDefinitionTest test = new UsageDefinitionTest();
+
+    try {
+      System.out.println("Running UsageDefinitionTest...");
+
+      test.testBindsInDefinitionOrder();
+      System.out.println("✓ testBindsInDefinitionOrder passed");
+
+      test.testSkipsAbsentOptionalArguments();
+      System.out.println("✓ testSkipsAbsentOptionalArguments passed");
+
+      test.testRejectsMismatchedDirectives();
+      System.out.println("✓ testRejectsMismatchedDirectives passed");
+
+      try {
+        test.testTypedAccessorChecksType();
+        System.err.println("✗ testTypedAccessorChecksType failed (did not throw exception)");
+      } catch (IllegalArgumentException e) {
+        System.out.println("✓ testTypedAccessorChecksType passed");
+      }
+
+      System.out.println("All UsageDefinition tests passed successfully!");
+    } catch (Exception e) {
+      System.err.println("Test failed with exception: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+}
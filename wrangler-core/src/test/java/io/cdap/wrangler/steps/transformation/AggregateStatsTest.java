@@ -19,16 +19,26 @@ package io.cdap.wrangler.steps.transformation;
 import io.cdap.wrangler.api.DirectiveExecutionException;
 import io.cdap.wrangler.api.ExecutorContext;
 import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.RowBatch;
+import io.cdap.wrangler.api.RowSchema;
+import io.cdap.wrangler.api.SchemaRow;
+import io.cdap.wrangler.api.parser.Arguments;
+import io.cdap.wrangler.api.parser.BooleanToken;
 import io.cdap.wrangler.api.parser.ColumnName;
 import io.cdap.wrangler.api.parser.SyntaxError;
 import io.cdap.wrangler.api.parser.Text;
 import io.cdap.wrangler.api.parser.TextToken;
 import io.cdap.wrangler.api.parser.UsageDefinition;
+import io.cdap.wrangler.parser.GrammarBasedParser;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Tests for {@link AggregateStats} class.
@@ -240,6 +250,601 @@ public class AggregateStatsTest {
     Assert.assertEquals(0, results.size());
   }
   
+  @Test
+  public void testBatchAggregation() throws DirectiveExecutionException {
+    // Create usage definition
+    UsageDefinition definition = UsageDefinition.builder("aggregate-stats")
+      .define("size_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("time_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("size_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("time_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .build();
+    
+    // Set argument values
+    definition.getArguments().get("size_column").setValue(new ColumnName("size"));
+    definition.getArguments().get("time_column").setValue(new ColumnName("time"));
+    definition.getArguments().get("size_out_col").setValue(new Text("total_size", "total_size"));
+    definition.getArguments().get("time_out_col").setValue(new Text("total_time", "total_time"));
+    
+    // Create directive
+    AggregateStats directive = new AggregateStats(definition);
+    
+    // Sizes as strings with units, times as raw nanoseconds; the last row has no size
+    RowBatch batch = RowBatch.builder(3)
+      .addColumn("size", new String[] {"1KB", "2KB", null})
+      .addColumn("time", new long[] {1000000L, 2000000L, 4000000L})
+      .build();
+    
+    // Execute directive
+    List<Row> results = directive.execute(batch, new MockExecutorContext());
+    
+    // Check results
+    Assert.assertEquals(1, results.size());
+    Row result = results.get(0);
+    Assert.assertEquals(3 * 1024.0, (Double) result.getValue("total_size"), 0.001);
+    Assert.assertEquals(3 * 1000000.0, (Double) result.getValue("total_time"), 0.001);
+    
+    // Converting rows to a batch gives the same result as executing on the rows
+    List<Row> rows = new ArrayList<>();
+    Row row1 = new Row();
+    row1.add("size", "1KB");
+    row1.add("time", "1ms");
+    rows.add(row1);
+    Row row2 = new Row();
+    row2.add("size", "2KB");
+    row2.add("time", "2ms");
+    rows.add(row2);
+    
+    Row fromRows = directive.execute(rows, new MockExecutorContext()).get(0);
+    Row fromBatch = directive.execute(RowBatch.fromRows(rows), new MockExecutorContext()).get(0);
+    Assert.assertEquals(fromRows.getValues(), fromBatch.getValues());
+  }
+  
+  @Test
+  public void testSchemaRowAggregation() throws DirectiveExecutionException {
+    // Create usage definition
+    UsageDefinition definition = UsageDefinition.builder("aggregate-stats")
+      .define("size_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("time_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("size_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("time_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .build();
+    
+    // Set argument values
+    definition.getArguments().get("size_column").setValue(new ColumnName("size"));
+    definition.getArguments().get("time_column").setValue(new ColumnName("time"));
+    definition.getArguments().get("size_out_col").setValue(new Text("total_size", "total_size"));
+    definition.getArguments().get("time_out_col").setValue(new Text("total_time", "total_time"));
+    
+    // Create directive
+    AggregateStats directive = new AggregateStats(definition);
+    
+    // Rows sharing one schema, mixed with a plain row
+    RowSchema schema = RowSchema.of("id", "size", "time");
+    List<Row> rows = new ArrayList<>();
+    
+    SchemaRow row1 = new SchemaRow(schema);
+    row1.set(schema.indexOf("size"), "1KB");
+    row1.set(schema.indexOf("time"), "1ms");
+    rows.add(row1);
+    
+    SchemaRow row2 = new SchemaRow(schema);
+    row2.add("size", "3KB");
+    row2.add("time", "2ms");
+    Assert.assertEquals("3KB", row2.getValue("size"));
+    Assert.assertEquals("2ms", row2.get(2));
+    rows.add(row2);
+    
+    // A schema-bound row with a null cell is skipped
+    SchemaRow row3 = new SchemaRow(schema);
+    row3.set(schema.indexOf("size"), "8KB");
+    rows.add(row3);
+    
+    Row row4 = new Row();
+    row4.add("size", "4KB");
+    row4.add("time", "1ms");
+    rows.add(row4);
+    
+    // Execute directive
+    List<Row> results = directive.execute(rows, new MockExecutorContext());
+    
+    // Check results
+    Row result = results.get(0);
+    Assert.assertEquals(8 * 1024.0, (Double) result.getValue("total_size"), 0.001);
+    Assert.assertEquals(4 * 1000000.0, (Double) result.getValue("total_time"), 0.001);
+  }
+  
+  @Test
+  public void testNumericCells() throws DirectiveExecutionException {
+    // Create usage definition
+    UsageDefinition definition = UsageDefinition.builder("aggregate-stats")
+      .define("size_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("time_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("size_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("time_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .build();
+    
+    // Set argument values
+    definition.getArguments().get("size_column").setValue(new ColumnName("size"));
+    definition.getArguments().get("time_column").setValue(new ColumnName("time"));
+    definition.getArguments().get("size_out_col").setValue(new Text("total_size", "total_size"));
+    definition.getArguments().get("time_out_col").setValue(new Text("total_time", "total_time"));
+    
+    // Create directive
+    AggregateStats directive = new AggregateStats(definition);
+    
+    // Numeric cells are bytes and nanoseconds, stored unboxed in schema-bound rows
+    RowSchema schema = RowSchema.of("size", "time");
+    List<Row> rows = new ArrayList<>();
+    
+    SchemaRow row1 = new SchemaRow(schema);
+    row1.setLong(0, 512L);
+    row1.setDouble(1, 1500.5);
+    Assert.assertTrue(row1.isNumeric("size"));
+    Assert.assertEquals(512L, row1.getLong("size"));
+    Assert.assertEquals(Double.valueOf(1500.5), row1.getValue("time"));
+    rows.add(row1);
+    
+    Row row2 = new Row();
+    row2.setLong("size", 512L);
+    row2.add("time", "1μs");
+    Assert.assertEquals(512.0, row2.getDouble("size"), 0.001);
+    Assert.assertFalse(row2.isNumeric("time"));
+    Assert.assertTrue(row2.isNull("missing"));
+    rows.add(row2);
+    
+    // Execute directive
+    List<Row> results = directive.execute(rows, new MockExecutorContext());
+    
+    // Check results
+    Row result = results.get(0);
+    Assert.assertEquals(1024.0, (Double) result.getValue("total_size"), 0.001);
+    Assert.assertEquals(2500.5, (Double) result.getValue("total_time"), 0.001);
+  }
+  
+  @Test
+  public void testIncrementalAggregation() throws DirectiveExecutionException {
+    // Create usage definition with incremental mode
+    UsageDefinition definition = UsageDefinition.builder("aggregate-stats")
+      .define("size_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("time_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("size_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("time_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("incremental", io.cdap.wrangler.api.parser.TokenType.BOOLEAN, io.cdap.wrangler.api.Optional.TRUE)
+      .build();
+    
+    // Set argument values
+    definition.getArguments().get("size_column").setValue(new ColumnName("size"));
+    definition.getArguments().get("time_column").setValue(new ColumnName("time"));
+    definition.getArguments().get("size_out_col").setValue(new Text("total_size", "total_size"));
+    definition.getArguments().get("time_out_col").setValue(new Text("total_time", "total_time"));
+    definition.getArguments().get("incremental").setValue(new BooleanToken(true));
+    
+    // Create directive
+    AggregateStats directive = new AggregateStats(definition);
+    
+    // Feed three batches; nothing is emitted until flush
+    for (int i = 1; i <= 3; i++) {
+      List<Row> rows = new ArrayList<>();
+      Row row = new Row();
+      row.add("size", i + "KB");
+      row.add("time", i + "ms");
+      rows.add(row);
+      Assert.assertTrue(directive.execute(rows, new MockExecutorContext()).isEmpty());
+    }
+    
+    List<Row> results = directive.flush();
+    Assert.assertEquals(1, results.size());
+    Assert.assertEquals(6 * 1024.0, (Double) results.get(0).getValue("total_size"), 0.001);
+    Assert.assertEquals(6 * 1000000.0, (Double) results.get(0).getValue("total_time"), 0.001);
+    
+    // Flushing resets the running totals
+    Assert.assertTrue(directive.flush().isEmpty());
+  }
+  
+  @Test
+  public void testGroupByAggregation() throws DirectiveExecutionException {
+    // Create usage definition with group-by columns
+    UsageDefinition definition = UsageDefinition.builder("aggregate-stats")
+      .define("size_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("time_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("size_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("time_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("operation", io.cdap.wrangler.api.parser.TokenType.TEXT, io.cdap.wrangler.api.Optional.TRUE)
+      .define("group_by", io.cdap.wrangler.api.parser.TokenType.TEXT, io.cdap.wrangler.api.Optional.TRUE)
+      .build();
+    
+    // Set argument values
+    definition.getArguments().get("size_column").setValue(new ColumnName("size"));
+    definition.getArguments().get("time_column").setValue(new ColumnName("time"));
+    definition.getArguments().get("size_out_col").setValue(new Text("avg_size", "avg_size"));
+    definition.getArguments().get("time_out_col").setValue(new Text("avg_time", "avg_time"));
+    definition.getArguments().get("operation").setValue(new Text("average", "average"));
+    definition.getArguments().get("group_by").setValue(new Text("region, status", "region, status"));
+    
+    // Create directive
+    AggregateStats directive = new AggregateStats(definition);
+    
+    // Enough distinct keys to force the group table to grow
+    List<Row> rows = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Row row = new Row();
+      row.add("region", "region-" + (i % 20));
+      row.add("status", i % 40 < 20 ? 200 : 500);
+      row.add("size", (i % 40 < 20 ? 1 : 3) + "KB");
+      row.add("time", (i % 40 < 20 ? 1 : 3) + "ms");
+      rows.add(row);
+    }
+    
+    // Execute directive
+    List<Row> results = directive.execute(rows, new MockExecutorContext());
+    
+    // One row per (region, status) pair, in first-seen order
+    Assert.assertEquals(40, results.size());
+    Row first = results.get(0);
+    Assert.assertEquals("region-0", first.getValue("region"));
+    Assert.assertEquals(200, first.getValue("status"));
+    Assert.assertEquals(1024.0, (Double) first.getValue("avg_size"), 0.001);
+    Assert.assertEquals(1000000.0, (Double) first.getValue("avg_time"), 0.001);
+    
+    Row last = results.get(39);
+    Assert.assertEquals("region-19", last.getValue("region"));
+    Assert.assertEquals(500, last.getValue("status"));
+    Assert.assertEquals(3 * 1024.0, (Double) last.getValue("avg_size"), 0.001);
+    
+    // The columnar path groups the same way
+    List<Row> batchResults = directive.execute(RowBatch.fromRows(rows), new MockExecutorContext());
+    Assert.assertEquals(40, batchResults.size());
+    Assert.assertEquals(3 * 1000000.0, (Double) batchResults.get(39).getValue("avg_time"), 0.001);
+  }
+  
+  @Test
+  public void testParallelAggregation() throws DirectiveExecutionException {
+    // Create usage definition with group-by columns
+    UsageDefinition definition = UsageDefinition.builder("aggregate-stats")
+      .define("size_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("time_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("size_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("time_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("operation", io.cdap.wrangler.api.parser.TokenType.TEXT, io.cdap.wrangler.api.Optional.TRUE)
+      .define("group_by", io.cdap.wrangler.api.parser.TokenType.TEXT, io.cdap.wrangler.api.Optional.TRUE)
+      .build();
+    
+    // Set argument values
+    definition.getArguments().get("size_column").setValue(new ColumnName("size"));
+    definition.getArguments().get("time_column").setValue(new ColumnName("time"));
+    definition.getArguments().get("size_out_col").setValue(new Text("total_size", "total_size"));
+    definition.getArguments().get("time_out_col").setValue(new Text("total_time", "total_time"));
+    definition.getArguments().get("group_by").setValue(new Text("bucket", "bucket"));
+    
+    // Create directive
+    AggregateStats directive = new AggregateStats(definition);
+    
+    List<Row> rows = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      Row row = new Row();
+      row.add("bucket", i % 7);
+      row.add("size", (i % 5) + "B");
+      row.add("time", (i % 3) + "ns");
+      rows.add(row);
+    }
+    
+    // A context that splits anything above 16 rows
+    ExecutorContext parallel = new ExecutorContext() {
+      @Override
+      public Environment getEnvironment() {
+        return new Environment() {
+          @Override
+          public String get(String name) {
+            return get(name, null);
+          }
+          
+          @Override
+          public String get(String name, String defaultValue) {
+            return AggregateStats.PARALLEL_THRESHOLD.equals(name) ? "16" : defaultValue;
+          }
+        };
+      }
+    };
+    
+    // The parallel run gives the same groups, in the same order, as the sequential one
+    List<Row> sequential = directive.execute(rows, new MockExecutorContext());
+    List<Row> forked = directive.execute(rows, parallel);
+    Assert.assertEquals(7, forked.size());
+    for (int i = 0; i < sequential.size(); i++) {
+      Assert.assertEquals(sequential.get(i).getValues(), forked.get(i).getValues());
+    }
+    
+    List<Row> forkedBatch = directive.execute(RowBatch.fromRows(rows), parallel);
+    Assert.assertEquals(sequential.get(0).getValue("total_size"), forkedBatch.get(0).getValue("total_size"));
+    
+    // Parse errors raised on worker threads surface as execution errors
+    rows.get(500).add("size", "not-a-size");
+    try {
+      directive.execute(rows, parallel);
+      Assert.fail("Expected a DirectiveExecutionException");
+    } catch (DirectiveExecutionException e) {
+      Assert.assertTrue(e.getMessage().contains("not-a-size"));
+    }
+  }
+  
+  
+  @Test
+  public void testSharedBoundDirective() throws Exception {
+    // One directive, bound from a parsed recipe line, executed by several threads at once
+    String recipe = "aggregate-stats :size :time 'total_size' 'total_time' 'KB' 'ms' 'total' 'bucket'";
+    Arguments arguments = AggregateStats.getUsage().bind(new GrammarBasedParser().parse(recipe));
+    Assert.assertFalse(arguments.has("incremental"));
+    AggregateStats directive = new AggregateStats(arguments);
+    
+    List<Row> rows = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      Row row = new Row();
+      row.add("bucket", i % 4);
+      row.add("size", (i % 5) + "KB");
+      row.add("time", (i % 3) + "ms");
+      rows.add(row);
+    }
+    List<Row> expected = directive.execute(rows, new MockExecutorContext());
+    Assert.assertEquals(4, expected.size());
+    
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        results.add(pool.submit(() -> {
+          for (int run = 0; run < 50; run++) {
+            List<Row> actual = directive.execute(rows, new MockExecutorContext());
+            for (int i = 0; i < expected.size(); i++) {
+              if (!expected.get(i).getValues().equals(actual.get(i).getValues())) {
+                return false;
+              }
+            }
+          }
+          return true;
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        Assert.assertTrue(result.get());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+  
+  @Test
+  public void testIncrementalFromRecipe() throws Exception {
+    // A bare true in a recipe is a boolean, so incremental mode can be turned on from the recipe text
+    String recipe = "aggregate-stats :size :time 'total_size' 'total_time' 'B' 'ns' 'total' true";
+    for (GrammarBasedParser.Mode mode : GrammarBasedParser.Mode.values()) {
+      Arguments arguments = AggregateStats.getUsage().bind(new GrammarBasedParser(mode).parse(recipe));
+      Assert.assertTrue(mode.name(), ((BooleanToken) arguments.get("incremental")).value());
+      AggregateStats directive = new AggregateStats(arguments);
+      
+      for (int i = 1; i <= 2; i++) {
+        Row row = new Row();
+        row.add("size", i + "B");
+        row.add("time", i + "ns");
+        List<Row> rows = new ArrayList<>();
+        rows.add(row);
+        Assert.assertTrue(directive.execute(rows, new MockExecutorContext()).isEmpty());
+      }
+      
+      List<Row> results = directive.flush();
+      Assert.assertEquals(1, results.size());
+      Assert.assertEquals(3.0, (Double) results.get(0).getValue("total_size"), 0.0);
+      Assert.assertEquals(3.0, (Double) results.get(0).getValue("total_time"), 0.0);
+    }
+  }
+  
+  @Test
+  public void testPercentileOperation() throws DirectiveExecutionException {
+    // Create usage definition with a percentile operation
+    UsageDefinition definition = UsageDefinition.builder("aggregate-stats")
+      .define("size_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("time_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("size_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("time_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("size_unit", io.cdap.wrangler.api.parser.TokenType.TEXT, io.cdap.wrangler.api.Optional.TRUE)
+      .define("time_unit", io.cdap.wrangler.api.parser.TokenType.TEXT, io.cdap.wrangler.api.Optional.TRUE)
+      .define("operation", io.cdap.wrangler.api.parser.TokenType.TEXT, io.cdap.wrangler.api.Optional.TRUE)
+      .build();
+    
+    // Set argument values
+    definition.getArguments().get("size_column").setValue(new ColumnName("size"));
+    definition.getArguments().get("time_column").setValue(new ColumnName("time"));
+    definition.getArguments().get("size_out_col").setValue(new Text("p99_size", "p99_size"));
+    definition.getArguments().get("time_out_col").setValue(new Text("p99_time", "p99_time"));
+    definition.getArguments().get("size_unit").setValue(new Text("KB", "KB"));
+    definition.getArguments().get("time_unit").setValue(new Text("μs", "μs"));
+    definition.getArguments().get("operation").setValue(new Text("p99", "p99"));
+    
+    // Create directive
+    AggregateStats directive = new AggregateStats(definition);
+    
+    // Create 1000 input rows, in descending order so the sketch does not see sorted input
+    List<Row> rows = new ArrayList<>();
+    for (int i = 1000; i >= 1; i--) {
+      Row row = new Row();
+      row.add("size", i + "KB");
+      row.add("time", i + "μs");
+      rows.add(row);
+    }
+    
+    // Execute directive
+    List<Row> results = directive.execute(rows, new MockExecutorContext());
+    
+    // The 99th percentile is the 990th value, estimated within 1%
+    Assert.assertEquals(1, results.size());
+    Row result = results.get(0);
+    Assert.assertEquals(990.0, (Double) result.getValue("p99_size"), 9.9);
+    Assert.assertEquals(990.0, (Double) result.getValue("p99_time"), 9.9);
+    
+    // A single digit is a whole percentage
+    definition.getArguments().get("operation").setValue(new Text("p5, p1", "p5, p1"));
+    result = new AggregateStats(definition).execute(rows, new MockExecutorContext()).get(0);
+    Assert.assertEquals(50.0, (Double) result.getValue("p99_size_p5"), 0.5);
+    Assert.assertEquals(50.0, (Double) result.getValue("p99_time_p5"), 0.5);
+    Assert.assertEquals(10.0, (Double) result.getValue("p99_size_p1"), 0.1);
+    Assert.assertEquals(10.0, (Double) result.getValue("p99_time_p1"), 0.1);
+    
+    // Sketches built separately merge into the same estimate as one sketch over all values
+    QuantileSketch all = new QuantileSketch();
+    QuantileSketch low = new QuantileSketch();
+    QuantileSketch high = new QuantileSketch();
+    for (int i = 1; i <= 100000; i++) {
+      all.add(i);
+      (i <= 50000 ? low : high).add(i);
+    }
+    low.merge(high);
+    Assert.assertEquals(100000, low.getCount());
+    Assert.assertEquals(all.quantile(0.5), low.quantile(0.5), 0.0);
+    Assert.assertEquals(50000.0, low.quantile(0.5), 500.0);
+    Assert.assertEquals(100000.0, low.quantile(1.0), 0.0);
+  }
+  
+  @Test
+  public void testMultipleOperations() throws DirectiveExecutionException {
+    // Create usage definition with several operations
+    UsageDefinition definition = UsageDefinition.builder("aggregate-stats")
+      .define("size_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("time_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("size_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("time_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("size_unit", io.cdap.wrangler.api.parser.TokenType.TEXT, io.cdap.wrangler.api.Optional.TRUE)
+      .define("time_unit", io.cdap.wrangler.api.parser.TokenType.TEXT, io.cdap.wrangler.api.Optional.TRUE)
+      .define("operation", io.cdap.wrangler.api.parser.TokenType.TEXT, io.cdap.wrangler.api.Optional.TRUE)
+      .build();
+    
+    // Set argument values
+    definition.getArguments().get("size_column").setValue(new ColumnName("size"));
+    definition.getArguments().get("time_column").setValue(new ColumnName("time"));
+    definition.getArguments().get("size_out_col").setValue(new Text("size", "size"));
+    definition.getArguments().get("time_out_col").setValue(new Text("time", "time"));
+    definition.getArguments().get("size_unit").setValue(new Text("KB", "KB"));
+    definition.getArguments().get("time_unit").setValue(new Text("ms", "ms"));
+    definition.getArguments().get("operation").setValue(
+      new Text("min, max, count, average, variance, stddev", "min, max, count, average, variance, stddev"));
+    
+    // Create directive
+    AggregateStats directive = new AggregateStats(definition);
+    
+    // Create input rows holding 1 to 4 KB and 1 to 4 ms
+    List<Row> rows = new ArrayList<>();
+    for (int i = 1; i <= 4; i++) {
+      Row row = new Row();
+      row.add("size", i + "KB");
+      row.add("time", i + "ms");
+      rows.add(row);
+    }
+    
+    // Execute directive
+    List<Row> results = directive.execute(rows, new MockExecutorContext());
+    
+    // Every statistic comes out of the same pass, each in its own pair of columns
+    Assert.assertEquals(1, results.size());
+    Row result = results.get(0);
+    Assert.assertEquals(1.0, (Double) result.getValue("size_min"), 0.001);
+    Assert.assertEquals(4.0, (Double) result.getValue("size_max"), 0.001);
+    Assert.assertEquals(4L, result.getValue("size_count"));
+    Assert.assertEquals(2.5, (Double) result.getValue("size_average"), 0.001);
+    Assert.assertEquals(5.0 / 3, (Double) result.getValue("size_variance"), 0.001);
+    Assert.assertEquals(Math.sqrt(5.0 / 3), (Double) result.getValue("size_stddev"), 0.001);
+    Assert.assertEquals(1.0, (Double) result.getValue("time_min"), 0.001);
+    Assert.assertEquals(4.0, (Double) result.getValue("time_max"), 0.001);
+    Assert.assertEquals(5.0 / 3, (Double) result.getValue("time_variance"), 0.001);
+    
+    // Variance of values far from zero survives a merge of partial states
+    StatsAccumulator left = new StatsAccumulator();
+    StatsAccumulator right = new StatsAccumulator();
+    left.add(1e12 + 1, 0.0);
+    left.add(1e12 + 2, 0.0);
+    right.add(1e12 + 3, 0.0);
+    right.add(1e12 + 4, 0.0);
+    left.merge(right);
+    Assert.assertEquals(5.0 / 3, left.getSize(0, Statistic.VARIANCE), 1e-6);
+    Assert.assertEquals(1e12 + 1, left.getSize(0, Statistic.MIN), 0.0);
+    
+    // Unknown operations are rejected when the directive is created
+    definition.getArguments().get("operation").setValue(new Text("min,median", "min,median"));
+    try {
+      new AggregateStats(definition);
+      Assert.fail("Expected an unknown operation to be rejected");
+    } catch (IllegalArgumentException e) {
+      Assert.assertTrue(e.getMessage().contains("median"));
+    }
+    
+    // So are unknown units, before any row is read
+    definition.getArguments().get("operation").setValue(new Text("min", "min"));
+    definition.getArguments().get("size_unit").setValue(new Text("ZB", "ZB"));
+    try {
+      new AggregateStats(definition);
+      Assert.fail("Expected an unknown unit to be rejected");
+    } catch (IllegalArgumentException e) {
+      Assert.assertTrue(e.getMessage().contains("ZB"));
+    }
+  }
+  
+  @Test
+  public void testExactTotals() {
+    StatsAccumulator stats = new StatsAccumulator();
+    
+    // A double sum drops the trailing bytes once the total passes 2^53
+    stats.add(9007199254740992.0, 0x1p62);
+    stats.add(1.0, 0x1p62);
+    stats.add(1.0, 0x1p62);
+    Assert.assertEquals(BigInteger.valueOf(9007199254740994L), stats.getExactSizeSum(0));
+    
+    // A total beyond a long moves to a big integer, also across a merge
+    StatsAccumulator other = new StatsAccumulator();
+    other.add(0.0, 0x1p62);
+    stats.merge(other);
+    Assert.assertEquals(BigInteger.ONE.shiftLeft(64), stats.getExactTimeSum(0));
+    Assert.assertEquals(0x1p64, stats.getTimeSum(0), 0.0);
+    
+    // A fraction makes the total inexact
+    stats.add(0.5, 0.0);
+    Assert.assertNull(stats.getExactSizeSum(0));
+    Assert.assertEquals(9007199254740994.5, stats.getSizeSum(0), 2.0);
+  }
+  
+  @Test
+  public void testExactLongTotals() throws DirectiveExecutionException {
+    UsageDefinition definition = UsageDefinition.builder("aggregate-stats")
+      .define("size_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("time_column", io.cdap.wrangler.api.parser.TokenType.COLUMN_NAME)
+      .define("size_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .define("time_out_col", io.cdap.wrangler.api.parser.TokenType.TEXT)
+      .build();
+    definition.getArguments().get("size_column").setValue(new ColumnName("size"));
+    definition.getArguments().get("time_column").setValue(new ColumnName("time"));
+    definition.getArguments().get("size_out_col").setValue(new Text("total_size", "total_size"));
+    definition.getArguments().get("time_out_col").setValue(new Text("total_time", "total_time"));
+    AggregateStats directive = new AggregateStats(definition);
+    
+    // 2^53 + 1 has no double, so summing doubles gives 2^53 + 0 + 1, which rounds back down to 2^53
+    RowBatch batch = RowBatch.builder(2)
+      .addColumn("size", new long[] {9007199254740993L, 1L})
+      .addColumn("time", new String[] {"9007199254740993ns", "1ns"})
+      .build();
+    Row fromBatch = directive.execute(batch, new MockExecutorContext()).get(0);
+    Assert.assertEquals(9007199254740994.0, (Double) fromBatch.getValue("total_size"), 0.0);
+    Assert.assertEquals(9007199254740994.0, (Double) fromBatch.getValue("total_time"), 0.0);
+    
+    Row fromRows = directive.execute(batch.toRows(), new MockExecutorContext()).get(0);
+    Assert.assertEquals(fromBatch.getValues(), fromRows.getValues());
+    
+    // The exact totals hold every byte and nanosecond
+    StatsAccumulator stats = new StatsAccumulator();
+    for (long value : new long[] {9007199254740993L, 1L}) {
+      int group = stats.addRow(new Object[0]);
+      stats.addSize(group, value);
+      stats.addTime(group, value);
+    }
+    Assert.assertEquals(BigInteger.valueOf(9007199254740994L), stats.getExactSizeSum(0));
+    Assert.assertEquals(BigInteger.valueOf(9007199254740994L), stats.getExactTimeSum(0));
+  }
+  
   public static void main(String[] args) {
     AggregateStatsTest test = new AggregateStatsTest();
     
@@ -258,6 +863,42 @@ public class AggregateStatsTest {
       test.testEmptyInput();
       System.out.println("✓ testEmptyInput passed");
       
+      test.testBatchAggregation();
+      System.out.println("✓ testBatchAggregation passed");
+      
+      test.testSchemaRowAggregation();
+      System.out.println("✓ testSchemaRowAggregation passed");
+      
+      test.testNumericCells();
+      System.out.println("✓ testNumericCells passed");
+      
+      test.testIncrementalAggregation();
+      System.out.println("✓ testIncrementalAggregation passed");
+      
+      test.testGroupByAggregation();
+      System.out.println("✓ testGroupByAggregation passed");
+      
+      test.testParallelAggregation();
+      System.out.println("✓ testParallelAggregation passed");
+      
+      test.testSharedBoundDirective();
+      System.out.println("✓ testSharedBoundDirective passed");
+      
+      test.testIncrementalFromRecipe();
+      System.out.println("✓ testIncrementalFromRecipe passed");
+      
+      test.testPercentileOperation();
+      System.out.println("✓ testPercentileOperation passed");
+      
+      test.testMultipleOperations();
+      System.out.println("✓ testMultipleOperations passed");
+      
+      test.testExactTotals();
+      System.out.println("✓ testExactTotals passed");
+      
+      test.testExactLongTotals();
+      System.out.println("✓ testExactLongTotals passed");
+      
       System.out.println("\nTesting AggregateStats directive with example data:");
       
       // Create a sample set of rows with byte sizes and time durations
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2023 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.steps.transformation;
+
+import io.cdap.wrangler.api.DirectiveExecutionException;
+import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.Text;
+import io.cdap.wrangler.api.parser.UsageDefinition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link FormatReadable} class.
+ */
+public class FormatReadableTest {
+  
+  private static FormatReadable directive(String column, String kind, String unit) {
+    UsageDefinition definition = FormatReadable.getUsage();
+    definition.getArguments().get("column").setValue(new ColumnName(column));
+    definition.getArguments().get("kind").setValue(new Text(kind, kind));
+    if (unit != null) {
+      definition.getArguments().get("unit").setValue(new Text(unit, unit));
+    }
+    return new FormatReadable(definition);
+  }
+  
+  private static List<Row> column(String name, Object... values) {
+    List<Row> rows = new ArrayList<>();
+    for (Object value : values) {
+      Row row = new Row();
+      row.add(name, value);
+      rows.add(row);
+    }
+    return rows;
+  }
+  
+  @Test
+  public void testFormatSizes() throws DirectiveExecutionException {
+    List<Row> rows = column("size", 1536.0, 512L, "2048KB", null, 1024L * 1024 * 1024);
+    directive("size", "size", null).execute(rows, null);
+    
+    Assert.assertEquals("1.5KB", rows.get(0).getValue("size"));
+    Assert.assertEquals("512B", rows.get(1).getValue("size"));
+    Assert.assertEquals("2MB", rows.get(2).getValue("size"));
+    Assert.assertNull(rows.get(3).getValue("size"));
+    Assert.assertEquals("1GB", rows.get(4).getValue("size"));
+  }
+  
+  @Test
+  public void testFormatDurations() throws DirectiveExecutionException {
+    List<Row> rows = column("time", 90_000L, 250.0, "1h30m", "PT36H");
+    directive("time", "time", "ms").execute(rows, null);
+    
+    Assert.assertEquals("1.5m", rows.get(0).getValue("time"));
+    Assert.assertEquals("250ms", rows.get(1).getValue("time"));
+    Assert.assertEquals("1.5h", rows.get(2).getValue("time"));
+    Assert.assertEquals("1.5d", rows.get(3).getValue("time"));
+  }
+  
+  @Test(expected = DirectiveExecutionException.class)
+  public void testInvalidCell() throws DirectiveExecutionException {
+    directive("size", "size", null).execute(column("size", "10 apples"), null);
+  }
+  
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownKind() {
+    directive("size", "weight", null);
+  }
+  
+  public static void main(String[] args) {
+    FormatReadableTest test = new FormatReadableTest();
+    
+    try {
+      System.out.println("Running FormatReadableTest...");
+      
+      test.testFormatSizes();
+      System.out.println("✓ testFormatSizes passed");
+      
+      test.testFormatDurations();
+      System.out.println("✓ testFormatDurations passed");
+      
+      try {
+        test.testInvalidCell();
+        System.err.println("✗ testInvalidCell failed (did not throw exception)");
+      } catch (DirectiveExecutionException e) {
+        System.out.println("✓ testInvalidCell passed");
+      }
+      
+      try {
+        test.testUnknownKind();
+        System.err.println("✗ testUnknownKind failed (did not throw exception)");
+      } catch (IllegalArgumentException e) {
+        System.out.println("✓ testUnknownKind passed");
+      }
+      
+      System.out.println("All FormatReadable tests passed successfully!");
+    } catch (Exception e) {
+      System.err.println("Test failed with exception: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+}